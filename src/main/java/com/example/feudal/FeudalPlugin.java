@@ -3,20 +3,30 @@ package com.example.feudal;
 import com.example.feudal.command.FeudalCommand;
 import com.example.feudal.land.FamilyLandProtectListener;
 import com.example.feudal.merchant.MerchantEditListener;
+import com.example.feudal.merchant.MerchantGuiListener;
 import com.example.feudal.merchant.MerchantKeys;
 import com.example.feudal.merchant.MerchantPriceInputListener;
 import com.example.feudal.merchant.MerchantService;
 import com.example.feudal.merchant.MerchantShopStorage;
+import com.example.feudal.merchant.MerchantStock;
 import com.example.feudal.npc.FeudalNPCTrait;
+import com.example.feudal.npc.FeudalNpcScheduler;
+import com.example.feudal.npc.FarmPlotListener;
 import com.example.feudal.npc.FarmerLoop;
+import com.example.feudal.npc.FarmerOffscreenListener;
 import com.example.feudal.npc.MerchantBuyListener;
+import com.example.feudal.npc.NpcRoleIndex;
+import com.example.feudal.npc.NpcRoleListener;
 import com.example.feudal.npc.TaxCollectorLoop;
 import com.example.feudal.service.FeudalService;
+import com.example.feudal.service.LedgerWriter;
+import com.example.feudal.service.MemberCacheListener;
 import com.example.feudal.service.TaxService;
 import com.example.feudal.storage.Database;
 import net.citizensnpcs.api.CitizensAPI;
 import net.citizensnpcs.api.trait.TraitInfo;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import com.example.feudal.npc.GuardLoop;
 
@@ -26,9 +36,12 @@ public class FeudalPlugin extends JavaPlugin {
 
     private FeudalService feudalService;
     private TaxService taxService;
+    private LedgerWriter ledgerWriter;
+    private FeudalCommand command;
 
     private MerchantKeys merchantKeys;
     private MerchantShopStorage merchantShopStorage;
+    private MerchantStock merchantStock;
     private MerchantService merchantService;
 
     @Override
@@ -41,6 +54,8 @@ public class FeudalPlugin extends JavaPlugin {
             return;
         }
 
+        saveDefaultConfig();
+
         // DB 오픈
         try {
             database = new Database(this);
@@ -53,12 +68,37 @@ public class FeudalPlugin extends JavaPlugin {
 
         // 서비스 생성
         feudalService = new FeudalService(database);
-        taxService = new TaxService(database);
+        ledgerWriter = new LedgerWriter(this, database.executor());
+        ledgerWriter.start();
+        taxService = new TaxService(database, ledgerWriter);
+
+        // 영지 인덱스 (보호 리스너가 DB 없이 조회) + NPC 소속 (가드/농노 루프가 DB 없이 조회)
+        try {
+            feudalService.loadLands();
+            feudalService.loadNpcMembers();
+        } catch (Exception e) {
+            getLogger().severe("영지/NPC 소속 로드 실패: " + e.getMessage());
+            Bukkit.getPluginManager().disablePlugin(this);
+            return;
+        }
+
+        // 리로드 등으로 이미 접속 중인 플레이어는 바로 캐시에 적재
+        for (Player p : Bukkit.getOnlinePlayers()) feudalService.members().load(p.getUniqueId());
 
         // 상인 시스템
         merchantKeys = new MerchantKeys(this);
-        merchantShopStorage = new MerchantShopStorage(this);
-        merchantService = new MerchantService(this, merchantShopStorage, merchantKeys);
+        merchantStock = new MerchantStock(this, database.executor());
+        merchantShopStorage = new MerchantShopStorage(this, database.executor(), merchantKeys, merchantStock);
+        try {
+            merchantShopStorage.reload();
+            merchantStock.load();
+        } catch (Exception e) {
+            getLogger().severe("상점 로드 실패: " + e.getMessage());
+            Bukkit.getPluginManager().disablePlugin(this);
+            return;
+        }
+        merchantStock.start();
+        merchantService = new MerchantService(this, merchantShopStorage, merchantKeys, merchantStock);
 
         // Citizens Trait 등록
         try {
@@ -68,36 +108,80 @@ public class FeudalPlugin extends JavaPlugin {
         } catch (Throwable t) {
             getLogger().warning("FeudalNPCTrait 등록 스킵/실패: " + t.getMessage());
         }
+        // 리로드로 이미 로드된 NPC 가 있으면 바로 인덱싱 (서버 시작 시엔 CitizensEnableEvent 에서)
+        NpcRoleIndex.rebuild();
+
+        // 가드 AI (통계를 /f stats 에서 보여주려고 커맨드보다 먼저 만듦), 농부 (밭 인덱스를 리스너가 갱신)
+        GuardLoop guardLoop = new GuardLoop(this, feudalService);
+        FarmerLoop farmerLoop = new FarmerLoop(this, feudalService);
 
         // 커맨드 등록
         if (getCommand("f") != null) {
-            getCommand("f").setExecutor(new FeudalCommand(feudalService, taxService, merchantService));
+            command = new FeudalCommand(this, feudalService, taxService, merchantService, guardLoop);
+            getCommand("f").setExecutor(command);
         } else {
             getLogger().severe("plugin.yml에 command 'f' 등록이 안 되어있음!");
         }
 
         // 리스너 등록
-        Bukkit.getPluginManager().registerEvents(new MerchantBuyListener(), this);
-
-        // 상점 가격 입력(모루 GUI)
-        Bukkit.getPluginManager().registerEvents(new MerchantPriceInputListener(this), this);
-
-        // 상점 편집(shift+우클릭 채팅 입력 방식도 같이 켜두려면)
-        Bukkit.getPluginManager().registerEvents(new MerchantEditListener(this, merchantService), this);
+        Bukkit.getPluginManager().registerEvents(new MemberCacheListener(feudalService.members()), this);
+        Bukkit.getPluginManager().registerEvents(new NpcRoleListener(merchantShopStorage), this);
+
+        // 상인 GUI: 구매 / 편집(shift+우클릭 채팅 입력) / 가격 입력(모루 GUI) 를 holder 로 구분해 한 리스너에서 분배
+        MerchantEditListener merchantEdit = new MerchantEditListener(this, merchantService);
+        Bukkit.getPluginManager().registerEvents(new MerchantGuiListener(
+                new MerchantBuyListener(merchantService),
+                merchantEdit,
+                new MerchantPriceInputListener(this, merchantKeys)
+        ), this);
+        Bukkit.getPluginManager().registerEvents(merchantEdit, this); // 채팅 가격 입력
 
         // 영지 보호
         Bukkit.getPluginManager().registerEvents(new FamilyLandProtectListener(feudalService), this);
 
+        // 농부 밭 인덱스 갱신
+        Bukkit.getPluginManager().registerEvents(new FarmPlotListener(farmerLoop.plots()), this);
+        Bukkit.getPluginManager().registerEvents(new FarmerOffscreenListener(this, farmerLoop), this);
+
         // 루프 시작
-        new FarmerLoop(this, feudalService).start();
-        new TaxCollectorLoop(this, taxService, feudalService).start();
-        new GuardLoop(this, feudalService).start();
+        // NPC 루프: 역할 인덱스 기반 통합 스케줄러 하나로
+        new FeudalNpcScheduler(this)
+                .register(farmerLoop)
+                .register(new TaxCollectorLoop(this, taxService, feudalService))
+                .register(guardLoop)
+                .start();
+        farmerLoop.start();
 
         getLogger().info("Feudalism enabled!");
     }
 
     @Override
     public void onDisable() {
+        // 처리 중인 명령을 먼저 멈춤 (DB 닫은 뒤에 쓰지 않도록)
+        if (command != null) command.close();
+
+        // static 역할 인덱스의 구독(스케줄러/농부 루프)을 끊음 (다시 켜질 때 새 루프만 받게)
+        NpcRoleIndex.clear();
+
+        // 저장 대기 중인 상점 먼저
+        try {
+            if (merchantShopStorage != null) merchantShopStorage.flush();
+        } catch (Throwable t) {
+            getLogger().severe("상점 저장 실패: " + t.getMessage());
+        }
+        try {
+            if (merchantStock != null) merchantStock.close();
+        } catch (Throwable t) {
+            getLogger().severe("상점 재고 저장 실패: " + t.getMessage());
+        }
+
+        // 장부 큐를 먼저 비우고 DB 닫기
+        try {
+            if (ledgerWriter != null) ledgerWriter.close();
+        } catch (Throwable t) {
+            getLogger().severe("장부 flush 실패: " + t.getMessage());
+        }
+
         try {
             if (database != null) database.close();
         } catch (Throwable ignored) {}
@@ -1,12 +1,17 @@
 package com.example.feudal.command;
 
+import com.example.feudal.land.LandIndex;
 import com.example.feudal.merchant.MerchantService;
 import com.example.feudal.model.Job;
 import com.example.feudal.model.Rank;
 import com.example.feudal.npc.FeudalNPCTrait;
+import com.example.feudal.npc.GuardLoop;
 import com.example.feudal.npc.NPCRole;
 import com.example.feudal.service.FeudalService;
+import com.example.feudal.service.LedgerWriter;
 import com.example.feudal.service.TaxService;
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
 import net.citizensnpcs.api.CitizensAPI;
 import net.citizensnpcs.api.npc.NPC;
 import org.bukkit.Bukkit;
@@ -14,26 +19,41 @@ import org.bukkit.Material;
 import org.bukkit.command.*;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
 
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.*;
 
 public class FeudalCommand implements CommandExecutor {
 
+    private final JavaPlugin plugin;
     private final FeudalService service;
     private final TaxService taxService;
     private final MerchantService merchant;
-    private final Map<UUID, PendingInvite> invites = new HashMap<>();
+    private final GuardLoop guards;
+    private final Map<UUID, PendingInvite> invites = new ConcurrentHashMap<>();
     private static final long INVITE_EXPIRE_MS = 5 * 60 * 1000L; // 5분
 
     private record PendingInvite(int familyId, long expiresAtMs, String familyName) {}
 
-    public FeudalCommand(FeudalService service, TaxService taxService, MerchantService merchant) {
+    private static final long MAIN_WAIT_MS = 5_000L;
+
+    // 명령은 이 스레드 하나에서 들어온 순서대로 (확인 후 처리 사이에 다른 명령이 끼어들지 않게)
+    private final ExecutorService commands = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Feudal-Cmd");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public FeudalCommand(JavaPlugin plugin, FeudalService service, TaxService taxService, MerchantService merchant,
+                         GuardLoop guards) {
+        this.plugin = plugin;
         this.service = service;
         this.taxService = taxService;
         this.merchant = merchant;
+        this.guards = guards;
     }
 
     @Override
@@ -48,6 +68,28 @@ public class FeudalCommand implements CommandExecutor {
             return true;
         }
 
+        // DB 작업이 많아서 명령 처리는 메인 밖 명령 스레드에서 한 번에 하나씩 (월드/NPC 접근만 onMain)
+        try {
+            commands.execute(() -> handle(p, args));
+        } catch (RejectedExecutionException e) {
+            p.sendMessage("§c서버 종료 중이라 처리할 수 없어.");
+        }
+        return true;
+    }
+
+    /** onDisable 에서 DB 닫기 전에 호출. 메인 스레드를 기다리는 명령은 인터럽트로 끊음 */
+    public void close() {
+        commands.shutdownNow();
+        try {
+            if (!commands.awaitTermination(2, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("[Cmd] 처리 중인 명령이 끝나지 않음");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean handle(Player p, String[] args) {
         try {
             switch (args[0].toLowerCase()) {
 
@@ -130,7 +172,11 @@ public class FeudalCommand implements CommandExecutor {
                             try { radius = Integer.parseInt(args[2]); }
                             catch (NumberFormatException e) { p.sendMessage("§c반경은 숫자!"); return true; }
                         }
-                        var loc = p.getLocation();
+                        if (radius < 1 || radius > LandIndex.MAX_RADIUS) {
+                            p.sendMessage("§c반경은 1~" + LandIndex.MAX_RADIUS + " 사이!");
+                            return true;
+                        }
+                        var loc = onMain(p::getLocation);
                         service.upsertFamilyLand(
                                 familyId,
                                 loc.getWorld().getName(),
@@ -151,6 +197,10 @@ public class FeudalCommand implements CommandExecutor {
                         int r;
                         try { r = Integer.parseInt(args[2]); }
                         catch (NumberFormatException e) { p.sendMessage("§c반경은 숫자!"); return true; }
+                        if (r < 1 || r > LandIndex.MAX_RADIUS) {
+                            p.sendMessage("§c반경은 1~" + LandIndex.MAX_RADIUS + " 사이!");
+                            return true;
+                        }
                         service.setFamilyLandRadius(familyId, r);
                         p.sendMessage("§a영지 반경 변경 완료: " + r);
                         return true;
@@ -172,7 +222,7 @@ public class FeudalCommand implements CommandExecutor {
                         p.sendMessage("§c권한이 없어!");
                         return true;
                     }
-                    Player t = Bukkit.getPlayerExact(args[1]);
+                    Player t = onMain(() -> Bukkit.getPlayerExact(args[1]));
                     if (t == null) { p.sendMessage("§c그 유저는 온라인이 아님"); return true; }
 
                     var myF = service.getFamilyIdOf(p.getUniqueId());
@@ -207,7 +257,7 @@ public class FeudalCommand implements CommandExecutor {
                         return true;
                     }
 
-                    Player t = Bukkit.getPlayerExact(args[1]);
+                    Player t = onMain(() -> Bukkit.getPlayerExact(args[1]));
                     if (t == null) { p.sendMessage("§c그 유저는 온라인이 아님"); return true; }
 
                     if (service.getFamilyIdOf(t.getUniqueId()).isPresent()) {
@@ -218,8 +268,10 @@ public class FeudalCommand implements CommandExecutor {
                     int familyId = myF.get();
                     String familyName = service.getFamilyNameById(familyId);
 
-                    invites.put(t.getUniqueId(),
-                            new PendingInvite(familyId, System.currentTimeMillis() + INVITE_EXPIRE_MS, familyName));
+                    // 수락 안 한 채 만료된 초대는 여기서 정리 (명령 스레드 하나라 다른 명령과 안 겹침)
+                    long now = System.currentTimeMillis();
+                    invites.values().removeIf(inv -> now > inv.expiresAtMs);
+                    invites.put(t.getUniqueId(), new PendingInvite(familyId, now + INVITE_EXPIRE_MS, familyName));
 
                     p.sendMessage("§a초대 보냄: §e" + t.getName() + "§a -> 가문 §6" + familyName);
                     t.sendMessage("§e[가문 초대] §6" + familyName + "§e 가문에 초대받았어!");
@@ -270,7 +322,7 @@ public class FeudalCommand implements CommandExecutor {
                             return true;
                         }
 
-                        Player t = Bukkit.getPlayerExact(args[2]);
+                        Player t = onMain(() -> Bukkit.getPlayerExact(args[2]));
                         if (t == null) { p.sendMessage("§c그 유저는 온라인이 아님"); return true; }
 
                         var myF = service.getFamilyIdOf(p.getUniqueId());
@@ -316,7 +368,7 @@ public class FeudalCommand implements CommandExecutor {
 
                         if (service.getRank(p.getUniqueId()) != Rank.KING) { p.sendMessage("§c직업 부여는 KING만 가능!"); return true; }
 
-                        Player t = Bukkit.getPlayerExact(args[2]);
+                        Player t = onMain(() -> Bukkit.getPlayerExact(args[2]));
                         if (t == null) { p.sendMessage("§c그 유저는 온라인이 아님"); return true; }
 
                         var myF = service.getFamilyIdOf(p.getUniqueId());
@@ -353,7 +405,7 @@ public class FeudalCommand implements CommandExecutor {
                     var fidOpt = service.getFamilyIdOf(p.getUniqueId());
                     if (fidOpt.isEmpty()) { p.sendMessage("§7너는 가문이 없어(평민)."); return true; }
                     int familyId = fidOpt.get();
-                    int bal = taxService.getBankBalance(familyId);
+                    long bal = taxService.getBankBalance(familyId);
                     p.sendMessage("§6[가문 금고] §ffamilyId=" + familyId + " §e잔액: " + bal + " (에메랄드 기준)");
                 }
 
@@ -374,14 +426,14 @@ public class FeudalCommand implements CommandExecutor {
                         return true;
                     }
 
-                    boolean ok = taxService.withdrawFromBank(familyId, amount);
+                    boolean ok = taxService.withdrawFromBank(familyId, amount, "WITHDRAW(" + p.getName() + ")");
                     if (!ok) {
-                        int bal = taxService.getBankBalance(familyId);
+                        long bal = taxService.getBankBalance(familyId);
                         p.sendMessage("§c금고 잔액이 부족해! 현재 잔액: " + bal);
                         return true;
                     }
 
-                    p.getInventory().addItem(new ItemStack(Material.EMERALD, amount));
+                    onMain(() -> p.getInventory().addItem(new ItemStack(Material.EMERALD, amount)));
                     p.sendMessage("§a가문 금고에서 §e" + amount + "§a 에메랄드를 인출했어!");
                 }
 
@@ -392,9 +444,11 @@ public class FeudalCommand implements CommandExecutor {
                         p.sendMessage("§e/f npc family <npcId> <familyId>    (KING만)");
                         p.sendMessage("§e/f npc serf <npcId> on|off         (KING만)");
                         p.sendMessage("§e/f npc job <npcId> <job>           (KING만)");
+                        p.sendMessage("§e/f npc home <npcId>                (KING만)  ※ 가드 초소를 내 위치로");
                         p.sendMessage("§e/f npc info <npcId>");
                         p.sendMessage("§e/f npc shop <npcId>");
                         p.sendMessage("§e/f npc shopedit <npcId>            (KING만)  ※ SHIFT+우클릭=가격설정");
+                        p.sendMessage("§e/f npc stock <npcId> <slot> <max> [보충량] [주기(분)] | off  (KING만)");
                         return true;
                     }
 
@@ -405,7 +459,7 @@ public class FeudalCommand implements CommandExecutor {
                         try { npcId = Integer.parseInt(args[2]); }
                         catch (NumberFormatException e) { p.sendMessage("§c<npcId> 는 숫자!"); return true; }
 
-                        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+                        NPC npc = onMain(() -> CitizensAPI.getNPCRegistry().getById(npcId));
                         if (npc == null) { p.sendMessage("§cNPC 없음. ID: " + npcId); return true; }
 
                         var fidOpt = service.getNpcFamilyId(npcId);
@@ -416,10 +470,13 @@ public class FeudalCommand implements CommandExecutor {
                         boolean serf = service.isNpcSerf(npcId);
                         Job job = service.getNpcJob(npcId);
 
-                        FeudalNPCTrait trait = npc.getOrAddTrait(FeudalNPCTrait.class);
-                        String roleStr = (trait.getRole() == null ? "NONE" : trait.getRole().name());
+                        String roleStr = onMain(() -> {
+                            FeudalNPCTrait trait = npc.getOrAddTrait(FeudalNPCTrait.class);
+                            return trait.getRole() == null ? "NONE" : trait.getRole().name();
+                        });
+                        String npcName = onMain(npc::getName);
 
-                        p.sendMessage("§6[NPC INFO] §f#" + npcId + " §7(" + npc.getName() + ")");
+                        p.sendMessage("§6[NPC INFO] §f#" + npcId + " §7(" + npcName + ")");
                         p.sendMessage("§b가문: §f" + familyStr);
                         p.sendMessage("§b농노: " + (serf ? "§cON" : "§aOFF"));
                         p.sendMessage("§b직업(DB): §f" + job.name());
@@ -433,7 +490,7 @@ public class FeudalCommand implements CommandExecutor {
                         try { npcId = Integer.parseInt(args[2]); }
                         catch (Exception e) { p.sendMessage("§c<npcId>는 숫자!"); return true; }
 
-                        merchant.openShop(p, npcId);
+                        onMain(() -> merchant.openShop(p, npcId));
                         return true;
                     }
 
@@ -449,7 +506,50 @@ public class FeudalCommand implements CommandExecutor {
                         try { npcId = Integer.parseInt(args[2]); }
                         catch (Exception e) { p.sendMessage("§c<npcId>는 숫자!"); return true; }
 
-                        merchant.openEditor(p, npcId);
+                        onMain(() -> merchant.openEditor(p, npcId));
+                        return true;
+                    }
+
+                    // /f npc stock <npcId> <slot> <max> [보충량] [주기(분)]  |  /f npc stock <npcId> <slot> off
+                    if (args[1].equalsIgnoreCase("stock")) {
+                        if (args.length < 5) {
+                            p.sendMessage("§c사용법: /f npc stock <npcId> <slot> <최대재고> [보충량] [주기(분)] | off");
+                            return true;
+                        }
+
+                        if (service.getRank(p.getUniqueId()) != Rank.KING) {
+                            p.sendMessage("§c재고 설정은 KING만 가능!");
+                            return true;
+                        }
+
+                        int npcId, slot;
+                        try {
+                            npcId = Integer.parseInt(args[2]);
+                            slot = Integer.parseInt(args[3]);
+                        } catch (NumberFormatException e) { p.sendMessage("§c<npcId>/<slot> 은 숫자!"); return true; }
+                        if (slot < 0 || slot >= 54) { p.sendMessage("§c<slot> 은 0~53!"); return true; }
+
+                        if (args[4].equalsIgnoreCase("off")) {
+                            boolean had = onMain(() -> merchant.stock().clearRule(npcId, slot));
+                            p.sendMessage(had ? "§a재고 제한 해제: #" + npcId + " 슬롯 " + slot + " §7(무한)" : "§7재고 제한이 없던 슬롯이야.");
+                            return true;
+                        }
+
+                        int max, amount, minutes;
+                        try {
+                            max = Integer.parseInt(args[4]);
+                            amount = args.length >= 6 ? Integer.parseInt(args[5]) : 0;
+                            minutes = args.length >= 7 ? Integer.parseInt(args[6]) : 0;
+                        } catch (NumberFormatException e) { p.sendMessage("§c재고/보충량/주기는 숫자!"); return true; }
+                        if (max <= 0) { p.sendMessage("§c최대 재고는 1 이상!"); return true; }
+                        if (amount < 0 || minutes < 0) { p.sendMessage("§c보충량/주기는 0 이상!"); return true; }
+
+                        boolean hasItem = onMain(() -> merchant.storage().catalog(npcId).price(slot) > 0);
+                        if (!hasItem) { p.sendMessage("§c그 슬롯에 파는 상품이 없어!"); return true; }
+
+                        onMain(() -> merchant.stock().setRule(npcId, slot, max, amount, minutes * 60_000L));
+                        p.sendMessage("§a재고 설정: #" + npcId + " 슬롯 " + slot + " §e" + max + "개"
+                                + (amount > 0 && minutes > 0 ? " §7(" + minutes + "분마다 " + amount + "개 입고)" : " §7(보충 없음)"));
                         return true;
                     }
 
@@ -471,7 +571,7 @@ public class FeudalCommand implements CommandExecutor {
                             return true;
                         }
 
-                        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+                        NPC npc = onMain(() -> CitizensAPI.getNPCRegistry().getById(npcId));
                         if (npc == null) { p.sendMessage("§cNPC 없음. ID: " + npcId); return true; }
 
                         service.setNpcMember(npcId, familyId);
@@ -479,6 +579,34 @@ public class FeudalCommand implements CommandExecutor {
                         return true;
                     }
 
+                    // /f npc home <npcId>  (가드가 한가할 때 돌아갈 초소)
+                    if (args[1].equalsIgnoreCase("home")) {
+                        if (args.length < 3) { p.sendMessage("§c사용법: /f npc home <npcId>"); return true; }
+
+                        if (service.getRank(p.getUniqueId()) != Rank.KING) {
+                            p.sendMessage("§c초소 지정은 KING만 가능!");
+                            return true;
+                        }
+
+                        int npcId;
+                        try { npcId = Integer.parseInt(args[2]); }
+                        catch (Exception e) { p.sendMessage("§c<npcId>는 숫자!"); return true; }
+
+                        NPC npc = onMain(() -> CitizensAPI.getNPCRegistry().getById(npcId));
+                        if (npc == null) { p.sendMessage("§cNPC 없음. ID: " + npcId); return true; }
+
+                        var myF = service.getFamilyIdOf(p.getUniqueId());
+                        var npcF = service.getNpcFamilyId(npcId);
+                        if (myF.isEmpty() || npcF.isEmpty() || !myF.get().equals(npcF.get())) {
+                            p.sendMessage("§c같은 가문 NPC만 초소 지정 가능");
+                            return true;
+                        }
+
+                        onMain(() -> npc.getOrAddTrait(FeudalNPCTrait.class).setHome(p.getLocation()));
+                        p.sendMessage("§aNPC #" + npcId + " 초소 지정 완료");
+                        return true;
+                    }
+
                     // /f npc role <npcId> <role>
                     if (args[1].equalsIgnoreCase("role")) {
                         if (args.length < 4) {
@@ -495,13 +623,15 @@ public class FeudalCommand implements CommandExecutor {
                         try { role = NPCRole.valueOf(args[3].toUpperCase()); }
                         catch (Exception e) { p.sendMessage("§c없는 역할: " + args[3]); return true; }
 
-                        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+                        NPC npc = onMain(() -> CitizensAPI.getNPCRegistry().getById(npcId));
                         if (npc == null) { p.sendMessage("§cNPC 없음. ID: " + npcId); return true; }
 
-                        FeudalNPCTrait trait = npc.getOrAddTrait(FeudalNPCTrait.class);
-                        trait.setRole(role);
+                        onMain(() -> {
+                            FeudalNPCTrait trait = npc.getOrAddTrait(FeudalNPCTrait.class);
+                            trait.setRole(role);
 
-                        if (role == NPCRole.FARMER) trait.setNextFarmAtMs(System.currentTimeMillis());
+                            if (role == NPCRole.FARMER) trait.setNextFarmAtMs(System.currentTimeMillis());
+                        });
 
                         p.sendMessage("§aNPC #" + npcId + " 역할 설정 완료: §e" + role.name());
                         return true;
@@ -515,7 +645,7 @@ public class FeudalCommand implements CommandExecutor {
                         try { npcId = Integer.parseInt(args[2]); }
                         catch (NumberFormatException e) { p.sendMessage("§c<npcId> 는 숫자!"); return true; }
 
-                        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+                        NPC npc = onMain(() -> CitizensAPI.getNPCRegistry().getById(npcId));
                         if (npc == null) { p.sendMessage("§cNPC 없음. ID: " + npcId); return true; }
 
                         if (service.getNpcFamilyId(npcId).isEmpty()) {
@@ -531,15 +661,19 @@ public class FeudalCommand implements CommandExecutor {
 
                         service.setNpcSerf(npcId, on);
 
-                        FeudalNPCTrait trait = npc.getOrAddTrait(FeudalNPCTrait.class);
-
                         if (on) {
                             service.setNpcJob(npcId, Job.NONE);
-                            trait.setRole(NPCRole.FARMER);
-                            trait.setNextFarmAtMs(System.currentTimeMillis());
+                            onMain(() -> {
+                                FeudalNPCTrait trait = npc.getOrAddTrait(FeudalNPCTrait.class);
+                                trait.setRole(NPCRole.FARMER);
+                                trait.setNextFarmAtMs(System.currentTimeMillis());
+                            });
                             p.sendMessage("§aNPC 농노 설정 완료: #" + npcId + " -> §cON (역할=FARMER / 직업=NONE)");
                         } else {
-                            if (trait.getRole() == NPCRole.FARMER) trait.setRole(null);
+                            onMain(() -> {
+                                FeudalNPCTrait trait = npc.getOrAddTrait(FeudalNPCTrait.class);
+                                if (trait.getRole() == NPCRole.FARMER) trait.setRole(null);
+                            });
                             p.sendMessage("§aNPC 농노 설정 완료: #" + npcId + " -> §aOFF");
                         }
                         return true;
@@ -553,7 +687,7 @@ public class FeudalCommand implements CommandExecutor {
                         try { npcId = Integer.parseInt(args[2]); }
                         catch (NumberFormatException e) { p.sendMessage("§c<npcId> 는 숫자!"); return true; }
 
-                        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+                        NPC npc = onMain(() -> CitizensAPI.getNPCRegistry().getById(npcId));
                         if (npc == null) { p.sendMessage("§cNPC 없음. ID: " + npcId); return true; }
 
                         String jobStr = args[3].toUpperCase();
@@ -574,7 +708,30 @@ public class FeudalCommand implements CommandExecutor {
                         return true;
                     }
 
-                    p.sendMessage("§c사용법: /f npc info|shop|shopedit|family|role|serf|job ...");
+                    p.sendMessage("§c사용법: /f npc info|shop|shopedit|stock|family|role|serf|job|home ...");
+                }
+
+                case "stats" -> {
+                    if (!p.hasPermission("feudal.admin")) {
+                        p.sendMessage("§c권한이 없어!");
+                        return true;
+                    }
+                    DbExecutor.Stats db = service.executor().stats();
+                    p.sendMessage("§6[DB] §f호출: " + db.calls() + " §7(읽기 풀 " + db.reads() + ") / 대기열: " + db.pending());
+                    p.sendMessage(String.format("§7대기 평균 %.2fms (최대 %.1fms) / 실행 평균 %.2fms (최대 %.1fms)",
+                            db.avgQueuedMs(), db.maxQueuedMs(), db.avgExecMs(), db.maxExecMs()));
+                    p.sendMessage("§7멤버 캐시: " + service.members().size() + "명");
+                    StatementCache.Stats st = service.executor().statementStats();
+                    p.sendMessage("§7문장 캐시: " + st.cached() + "개 / prepare " + st.prepares() + "회 / 실행 " + st.executions() + "회");
+                    LedgerWriter.Stats lg = taxService.ledger().stats();
+                    p.sendMessage(String.format("§7장부 큐: %d/%d (대기 발생 %d회) / 기록 %d건, flush %d회 평균 %.2fms (마지막 %.2fms, 최대 %.1fms)",
+                            lg.queued(), lg.capacity(), lg.blocked(), lg.written(), lg.flushes(),
+                            lg.avgFlushMs(), lg.lastFlushMs(), lg.maxFlushMs()));
+                    GuardLoop.Stats gd = guards.stats();
+                    p.sendMessage(String.format("§7가드: 틱당 %d명 (평균 %.1f) / %.2fms (평균 %.2fms, 최대 %.1fms) / 이월 대기 %d명, 이월 %d틱 %d명",
+                            gd.lastProcessed(), gd.avgProcessed(), gd.lastMs(), gd.avgMs(), gd.maxMs(),
+                            gd.pending(), gd.deferredTicks(), gd.deferredGuards()));
+                    p.sendMessage("§7가드 길찾기: 요청 " + gd.navIssued() + "회 / 같은 목표라 생략 " + gd.navSkipped() + "회");
                 }
 
                 default -> help(p);
@@ -589,6 +746,25 @@ public class FeudalCommand implements CommandExecutor {
         return true;
     }
 
+    // Bukkit 월드/NPC 접근은 메인 스레드에서 (명령 스레드는 결과를 기다리되, 종료 중엔 무한정 기다리지 않음)
+    private <T> T onMain(Callable<T> task) throws Exception {
+        if (!plugin.isEnabled()) throw new IllegalStateException("플러그인 종료 중");
+        Future<T> f = Bukkit.getScheduler().callSyncMethod(plugin, task);
+        try {
+            return f.get(MAIN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(false);
+            throw new IllegalStateException("메인 스레드 응답 시간 초과");
+        }
+    }
+
+    private void onMain(Runnable task) throws Exception {
+        onMain(() -> {
+            task.run();
+            return null;
+        });
+    }
+
     private void help(Player p) {
         p.sendMessage("§e/f create <가문이름>");
         p.sendMessage("§e/f info");
@@ -605,9 +781,11 @@ public class FeudalCommand implements CommandExecutor {
         p.sendMessage("§e/f withdraw <amount> (KING만)");
         p.sendMessage("§e/f promote <닉>  (admin)");
         p.sendMessage("§e/f demote <닉>   (admin)");
+        p.sendMessage("§e/f stats         (admin)");
         p.sendMessage("§e/f npc info <npcId>");
         p.sendMessage("§e/f npc shop <npcId>");
         p.sendMessage("§e/f npc shopedit <npcId> (KING만)  ※ SHIFT+우클릭=가격설정");
+        p.sendMessage("§e/f npc stock <npcId> <slot> <max> [보충량] [주기(분)] | off (KING만)");
         p.sendMessage("§e/f npc family <npcId> <familyId> (KING만)");
         p.sendMessage("§e/f npc role <npcId> <role> (KING만)");
         p.sendMessage("§e/f npc serf <npcId> on|off (KING만)");
@@ -13,9 +13,11 @@ import java.sql.SQLException;
 
 public class FamilyLandProtectListener implements Listener {
     private final FeudalService service;
+    private final LandIndex lands;
 
     public FamilyLandProtectListener(FeudalService service) {
         this.service = service;
+        this.lands = service.lands();
     }
 
     private boolean isInside(Block b, FeudalService.FamilyLand land) {
@@ -29,24 +31,18 @@ public class FamilyLandProtectListener implements Listener {
     }
 
     private boolean canBuild(Player p, Location loc) throws SQLException {
+        if (loc == null || loc.getWorld() == null) return true;
+
+        // 청크 인덱스로 영지 먼저 (대부분 영지 밖이라 여기서 끝남)
+        int landFamily = lands.familyAt(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockZ());
+        if (landFamily == LandIndex.NONE) return true; // 어떤 영지도 아니면 OK
+
         if (p.hasPermission("feudal.admin")) return true;
 
         var myF = service.getFamilyIdOf(p.getUniqueId());
         if (myF.isEmpty()) return true; // 무소속은 기본적으로 밖에서만 행동하도록 "막고 싶다"면 여기 false로 바꾸면 됨
 
-        for (FeudalService.FamilyLand land : service.listEnabledFamilyLands()) {
-            if (loc == null || loc.getWorld() == null) continue;
-            if (!loc.getWorld().getName().equals(land.world())) continue;
-
-            int dx = loc.getBlockX() - land.x();
-            int dz = loc.getBlockZ() - land.z();
-            int r = land.radius();
-
-            if ((dx * dx + dz * dz) <= (r * r)) {
-                return myF.get() == land.familyId();
-            }
-        }
-        return true; // 어떤 영지도 아니면 OK
+        return myF.get() == landFamily;
     }
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGH)
@@ -0,0 +1,262 @@
+package com.example.feudal.land;
+
+import com.example.feudal.service.FeudalService.FamilyLand;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 영지 공간 인덱스 (월드 -> 청크 -> 그 청크에 걸치는 영지 원들).
+ * - 조회(familyAt): 청크 키 하나 찾고 후보 몇 개만 거리 비교, 할당 없음
+ * - 변경: 바뀐 영지가 걸친 청크만 고친 새 그리드를 만들어 통째로 교체 (copy-on-write, 읽기는 락 없음)
+ * 비활성 영지도 행 정보는 들고 있고(반경/활성 변경용) 그리드에는 활성 영지만 넣는다.
+ * 지름이 WIDE_CHUNKS 청크를 넘는 큰 영지는 청크마다 뿌리지 않고 월드별 작은 목록에 따로 둔다
+ * (반경이 커도 변경 비용이 청크 수에 비례해 커지지 않게).
+ */
+public class LandIndex {
+
+    public static final int NONE = -1;
+
+    /** 명령으로 설정 가능한 최대 반경 (블록) */
+    public static final int MAX_RADIUS = 5000;
+
+    // 이보다 넓은 영지는 그리드 대신 wide 목록
+    private static final int WIDE_CHUNKS = 64;
+
+    private static final FamilyLand[] EMPTY = new FamilyLand[0];
+
+    private final Map<Integer, FamilyLand> lands = new ConcurrentHashMap<>();
+    private volatile Map<String, ChunkGrid> grids = Map.of();
+
+    // --------------------
+    // 조회
+    // --------------------
+
+    /** (x, z) 를 덮는 활성 영지의 가문 ID, 없으면 NONE */
+    public int familyAt(String world, int x, int z) {
+        ChunkGrid g = grids.get(world);
+        if (g == null) return NONE;
+
+        FamilyLand[] cands = g.get(key(x >> 4, z >> 4));
+        if (cands != null) {
+            for (FamilyLand l : cands) if (covers(l, x, z)) return l.familyId();
+        }
+        for (FamilyLand l : g.wide) if (covers(l, x, z)) return l.familyId();
+        return NONE;
+    }
+
+    private static boolean covers(FamilyLand l, int x, int z) {
+        long dx = (long) x - l.x();
+        long dz = (long) z - l.z();
+        long r = Math.max(0, l.radius());
+        return dx * dx + dz * dz <= r * r;
+    }
+
+    public Optional<FamilyLand> get(int familyId) {
+        return Optional.ofNullable(lands.get(familyId));
+    }
+
+    public List<FamilyLand> enabled() {
+        List<FamilyLand> out = new ArrayList<>();
+        for (FamilyLand l : lands.values()) if (l.enabled()) out.add(l);
+        return out;
+    }
+
+    public int size() {
+        return lands.size();
+    }
+
+    // --------------------
+    // 변경
+    // --------------------
+    public synchronized void load(Collection<FamilyLand> all) {
+        lands.clear();
+        Map<String, ChunkGrid> next = new HashMap<>();
+        for (FamilyLand l : all) {
+            lands.put(l.familyId(), l);
+            if (!l.enabled()) continue;
+            index(next.computeIfAbsent(l.world(), w -> new ChunkGrid(16)), l);
+        }
+        grids = next;
+    }
+
+    public synchronized void put(FamilyLand land) {
+        FamilyLand old = lands.put(land.familyId(), land);
+
+        Map<String, ChunkGrid> next = new HashMap<>(grids);
+        if (old != null && old.enabled()) {
+            unindex(writable(next, old.world()), old);
+        }
+        if (land.enabled()) {
+            index(writable(next, land.world()), land);
+        }
+        grids = next;
+    }
+
+    public void setRadius(int familyId, int radius) {
+        FamilyLand l = lands.get(familyId);
+        if (l == null) return;
+        put(new FamilyLand(l.familyId(), l.world(), l.x(), l.y(), l.z(), radius, l.enabled()));
+    }
+
+    public void setEnabled(int familyId, boolean enabled) {
+        FamilyLand l = lands.get(familyId);
+        if (l == null) return;
+        put(new FamilyLand(l.familyId(), l.world(), l.x(), l.y(), l.z(), l.radius(), enabled));
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+
+    /** 이번 변경에서 처음 건드리는 월드면 복사본으로 바꿔 끼움 (공개된 그리드는 수정하지 않음) */
+    private ChunkGrid writable(Map<String, ChunkGrid> next, String world) {
+        ChunkGrid cur = next.get(world);
+        ChunkGrid pub = grids.get(world);
+        if (cur != null && cur != pub) return cur;
+
+        ChunkGrid copy = cur == null ? new ChunkGrid(16) : cur.copy();
+        next.put(world, copy);
+        return copy;
+    }
+
+    private static boolean isWide(FamilyLand l) {
+        return Math.max(0, l.radius()) * 2L > WIDE_CHUNKS * 16L;
+    }
+
+    private static void index(ChunkGrid g, FamilyLand l) {
+        if (isWide(l)) g.addWide(l);
+        else forEachChunk(l, k -> g.add(k, l));
+    }
+
+    private static void unindex(ChunkGrid g, FamilyLand l) {
+        if (isWide(l)) g.removeWide(l.familyId());
+        else forEachChunk(l, k -> g.remove(k, l.familyId()));
+    }
+
+    @FunctionalInterface
+    private interface ChunkVisitor {
+        void visit(long key);
+    }
+
+    /** 원과 겹치는 청크만 (좁은 영지만 들어옴, 좌표 끝에서도 넘치지 않게 long 으로) */
+    private static void forEachChunk(FamilyLand l, ChunkVisitor v) {
+        long r = Math.max(0, l.radius());
+        long r2 = r * r;
+        for (long cx = (l.x() - r) >> 4; cx <= (l.x() + r) >> 4; cx++) {
+            for (long cz = (l.z() - r) >> 4; cz <= (l.z() + r) >> 4; cz++) {
+                // 청크 사각형에서 중심에 가장 가까운 점
+                long nx = Math.max(cx << 4, Math.min(l.x(), (cx << 4) + 15));
+                long nz = Math.max(cz << 4, Math.min(l.z(), (cz << 4) + 15));
+                long dx = nx - l.x();
+                long dz = nz - l.z();
+                if (dx * dx + dz * dz <= r2) v.visit(key((int) cx, (int) cz));
+            }
+        }
+    }
+
+    private static long key(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xffffffffL);
+    }
+
+    /** long 키 open addressing 맵 (박싱 없음). 공개 후에는 읽기만 */
+    private static final class ChunkGrid {
+        private long[] keys;
+        private FamilyLand[][] vals;
+        private int size;
+        FamilyLand[] wide = EMPTY; // 큰 영지 (바꿀 때는 새 배열로 교체)
+
+        ChunkGrid(int capacity) {
+            int cap = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            keys = new long[cap];
+            vals = new FamilyLand[cap][];
+        }
+
+        FamilyLand[] get(long key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; vals[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) return vals[i];
+            }
+            return null;
+        }
+
+        void add(long key, FamilyLand l) {
+            FamilyLand[] cur = get(key);
+            if (cur == null || cur.length == 0) {
+                put(key, new FamilyLand[]{l});
+                return;
+            }
+            FamilyLand[] n = new FamilyLand[cur.length + 1];
+            System.arraycopy(cur, 0, n, 0, cur.length);
+            n[cur.length] = l;
+            put(key, n);
+        }
+
+        /** 빈 배열로 남겨두고 다음 copy() 때 정리 */
+        void remove(long key, int familyId) {
+            FamilyLand[] cur = get(key);
+            if (cur == null) return;
+            List<FamilyLand> keep = new ArrayList<>(cur.length);
+            for (FamilyLand l : cur) if (l.familyId() != familyId) keep.add(l);
+            put(key, keep.isEmpty() ? EMPTY : keep.toArray(EMPTY));
+        }
+
+        void addWide(FamilyLand l) {
+            FamilyLand[] n = new FamilyLand[wide.length + 1];
+            System.arraycopy(wide, 0, n, 0, wide.length);
+            n[wide.length] = l;
+            wide = n;
+        }
+
+        void removeWide(int familyId) {
+            List<FamilyLand> keep = new ArrayList<>(wide.length);
+            for (FamilyLand l : wide) if (l.familyId() != familyId) keep.add(l);
+            wide = keep.toArray(EMPTY);
+        }
+
+        ChunkGrid copy() {
+            ChunkGrid c = new ChunkGrid(size * 2);
+            c.wide = wide;
+            for (int i = 0; i < keys.length; i++) {
+                if (vals[i] != null && vals[i].length > 0) c.put(keys[i], vals[i]);
+            }
+            return c;
+        }
+
+        private void put(long key, FamilyLand[] v) {
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (vals[i] != null) {
+                if (keys[i] == key) {
+                    vals[i] = v;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            vals[i] = v;
+            if (++size * 2 > keys.length) grow();
+        }
+
+        private void grow() {
+            long[] ok = keys;
+            FamilyLand[][] ov = vals;
+            keys = new long[ok.length * 2];
+            vals = new FamilyLand[ok.length * 2][];
+            size = 0;
+            for (int i = 0; i < ok.length; i++) {
+                if (ov[i] != null) put(ok[i], ov[i]);
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
\ No newline at end of file
@@ -10,7 +10,6 @@ import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.inventory.InventoryView;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -31,19 +30,8 @@ public class MerchantEditListener implements Listener {
         this.service = service;
     }
 
-    private boolean isEditor(InventoryView view) {
-        String t = view.getTitle();
-        return t != null && t.startsWith("§d[편집]");
-    }
-
-    @EventHandler
-    public void onEditorClick(InventoryClickEvent e) {
-        if (!(e.getWhoClicked() instanceof Player p)) return;
-        if (!isEditor(e.getView())) return;
-
-        // 편집 GUI는 기본 아이템 이동 허용(취소 안 함)
-        if (e.getClick() != ClickType.SHIFT_RIGHT) return;
-
+    /** 에디터에서 shift+우클릭: 채팅으로 가격 입력 (MerchantGuiListener 가 넘겨줌) */
+    public void onEditorClick(Player p, MerchantGui gui, InventoryClickEvent e) {
         ItemStack it = e.getCurrentItem();
         if (it == null || it.getType() == Material.AIR) return;
 
@@ -52,23 +40,13 @@ public class MerchantEditListener implements Listener {
         int slot = e.getRawSlot();
         if (slot < 0 || slot >= e.getInventory().getSize()) return;
 
-        int npcId = extractNpcIdFromTitle(e.getView().getTitle());
-        if (npcId < 0) {
-            p.sendMessage("§c상점 NPC 정보를 읽지 못했어. 제목 형식을 확인해줘!");
-            return;
-        }
-
-        pending.put(p.getUniqueId(), new PendingPrice(npcId, slot));
+        pending.put(p.getUniqueId(), new PendingPrice(gui.npcId(), slot));
         p.sendMessage("§e가격을 채팅으로 입력해줘. (예: 12)  / 취소: cancel");
     }
 
-    @EventHandler
-    public void onEditorClose(InventoryCloseEvent e) {
-        if (!(e.getPlayer() instanceof Player p)) return;
-        if (!isEditor(e.getView())) return;
-
-        int npcId = extractNpcIdFromTitle(e.getView().getTitle());
-        if (npcId < 0) return;
+    /** 에디터 닫힘: 상점 저장 */
+    public void onEditorClose(Player p, MerchantGui gui, InventoryCloseEvent e) {
+        int npcId = gui.npcId();
 
         Inventory inv = e.getInventory();
         String title = service.storage().getTitle(npcId);
@@ -108,7 +86,8 @@ public class MerchantEditListener implements Listener {
         if (price <= 0) { p.sendMessage("§c가격은 1 이상!"); return; }
 
         Bukkit.getScheduler().runTask(plugin, () -> {
-            if (!isEditor(p.getOpenInventory())) {
+            MerchantGui gui = MerchantGui.of(p.getOpenInventory().getTopInventory());
+            if (gui == null || gui.screen() != MerchantGui.Screen.EDITOR || gui.npcId() != pp.npcId) {
                 pending.remove(p.getUniqueId());
                 p.sendMessage("§c편집 GUI가 닫혀서 취소됐어.");
                 return;
@@ -132,13 +111,4 @@ public class MerchantEditListener implements Listener {
             pending.remove(p.getUniqueId());
         });
     }
-
-    private int extractNpcIdFromTitle(String title) {
-        // 제목: "§d[편집] §6상인 #12" 또는 "§6상인 #12"
-        String plain = title.replaceAll("§.", "");
-        int idx = plain.lastIndexOf("#");
-        if (idx < 0) return -1;
-        try { return Integer.parseInt(plain.substring(idx + 1).trim()); }
-        catch (Exception ignored) { return -1; }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.feudal.merchant;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * 상인 GUI 인벤토리의 holder. 화면 종류와 npcId 를 들고 있어서
+ * 클릭이 어느 GUI 것인지 제목 문자열 대신 instanceof 한 번으로 가린다.
+ * 가격 입력(모루) 화면은 돌아갈 에디터 인벤토리와 원본 아이템도 같이 들고 있음.
+ */
+public final class MerchantGui implements InventoryHolder {
+
+    public enum Screen { SHOP, EDITOR, PRICE_INPUT }
+
+    private final Screen screen;
+    private final int npcId;
+    private final int slot;
+    private final Inventory editor;
+    private final ItemStack baseItem;
+    private Inventory inventory;
+
+    private MerchantGui(Screen screen, int npcId, int slot, Inventory editor, ItemStack baseItem) {
+        this.screen = screen;
+        this.npcId = npcId;
+        this.slot = slot;
+        this.editor = editor;
+        this.baseItem = baseItem;
+    }
+
+    public static MerchantGui shop(int npcId) {
+        return new MerchantGui(Screen.SHOP, npcId, -1, null, null);
+    }
+
+    public static MerchantGui editor(int npcId) {
+        return new MerchantGui(Screen.EDITOR, npcId, -1, null, null);
+    }
+
+    public static MerchantGui priceInput(int npcId, int slot, Inventory editor, ItemStack baseItem) {
+        return new MerchantGui(Screen.PRICE_INPUT, npcId, slot, editor, baseItem);
+    }
+
+    /** 상인 GUI 면 holder, 아니면 null */
+    public static MerchantGui of(Inventory inv) {
+        return inv != null && inv.getHolder() instanceof MerchantGui gui ? gui : null;
+    }
+
+    /** 이 holder 로 만든 인벤토리를 연결하고 그대로 리턴 */
+    Inventory bind(Inventory inv) {
+        this.inventory = inv;
+        return inv;
+    }
+
+    public Screen screen() { return screen; }
+    public int npcId() { return npcId; }
+
+    /** PRICE_INPUT 전용: 가격을 매길 에디터 슬롯 */
+    public int slot() { return slot; }
+    public Inventory editor() { return editor; }
+    public ItemStack baseItem() { return baseItem; }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
\ No newline at end of file
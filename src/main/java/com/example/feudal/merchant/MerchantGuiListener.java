@@ -0,0 +1,58 @@
+package com.example.feudal.merchant;
+
+import com.example.feudal.npc.MerchantBuyListener;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.PrepareAnvilEvent;
+
+/**
+ * 상인 GUI 이벤트 단일 진입점.
+ * 위쪽 인벤토리 holder 가 MerchantGui 인지 instanceof 한 번으로 보고 화면 종류별 처리기로 넘김
+ * (상인 GUI 가 아니면 제목 비교/문자열 처리 없이 바로 리턴).
+ */
+public class MerchantGuiListener implements Listener {
+
+    private final MerchantBuyListener buy;
+    private final MerchantEditListener edit;
+    private final MerchantPriceInputListener priceInput;
+
+    public MerchantGuiListener(MerchantBuyListener buy, MerchantEditListener edit, MerchantPriceInputListener priceInput) {
+        this.buy = buy;
+        this.edit = edit;
+        this.priceInput = priceInput;
+    }
+
+    @EventHandler
+    public void onClick(InventoryClickEvent e) {
+        if (!(e.getView().getTopInventory().getHolder() instanceof MerchantGui gui)) return;
+        if (!(e.getWhoClicked() instanceof Player p)) return;
+
+        switch (gui.screen()) {
+            case SHOP -> buy.onClick(p, gui, e);
+            case EDITOR -> {
+                // shift+우클릭은 채팅 입력, 나머지 위쪽 클릭은 모루 입력
+                if (e.getClick() == ClickType.SHIFT_RIGHT) edit.onEditorClick(p, gui, e);
+                else priceInput.onEditorClick(p, gui, e);
+            }
+            case PRICE_INPUT -> priceInput.onAnvilClick(p, gui, e);
+        }
+    }
+
+    @EventHandler
+    public void onClose(InventoryCloseEvent e) {
+        if (!(e.getInventory().getHolder() instanceof MerchantGui gui)) return;
+        if (!(e.getPlayer() instanceof Player p)) return;
+
+        if (gui.screen() == MerchantGui.Screen.EDITOR) edit.onEditorClose(p, gui, e);
+    }
+
+    @EventHandler
+    public void onPrepareAnvil(PrepareAnvilEvent e) {
+        if (!(e.getInventory().getHolder() instanceof MerchantGui gui)) return;
+        if (gui.screen() == MerchantGui.Screen.PRICE_INPUT) priceInput.onPrepareAnvil(gui, e);
+    }
+}
\ No newline at end of file
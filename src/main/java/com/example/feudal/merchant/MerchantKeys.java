@@ -9,15 +9,23 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class MerchantKeys {
 
+    private static final Pattern COLOR_CODE = Pattern.compile("§.");
+
     private final NamespacedKey PRICE_KEY;
 
     public MerchantKeys(JavaPlugin plugin) {
         this.PRICE_KEY = new NamespacedKey(plugin, "merchant_price");
     }
 
+    /**
+     * 아이템에 붙은 merchant_price 태그 (없으면 -1).
+     * 에디터 저장(MerchantShopStorage.saveFromEditorInventory)에서 슬롯 가격을 정할 때만 씀.
+     * 구매는 이 태그를 읽지 않고 ShopCatalog.price(slot) 로 가격을 정함.
+     */
     public int getPrice(ItemStack item) {
         if (item == null || item.getType() == Material.AIR) return -1;
         if (!item.hasItemMeta()) return -1;
@@ -65,6 +73,6 @@ public class MerchantKeys {
     private String strip(String s) {
         if (s == null) return "";
         // 색코드 간단 제거(§)
-        return s.replaceAll("§.", "");
+        return COLOR_CODE.matcher(s).replaceAll("");
     }
 }
\ No newline at end of file
@@ -3,8 +3,6 @@ package com.example.feudal.merchant;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.*;
 import org.bukkit.inventory.*;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -12,28 +10,23 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.*;
 
-public class MerchantPriceInputListener implements Listener {
+/**
+ * 에디터 아이템 클릭 -> 모루 GUI 로 가격 입력 (MerchantGuiListener 가 EDITOR/PRICE_INPUT 화면 이벤트를 넘겨줌).
+ * 어느 npc/슬롯/에디터인지는 모루 인벤토리의 MerchantGui holder 가 들고 있음.
+ */
+public class MerchantPriceInputListener {
 
     private static final String ANVIL_TITLE = "§e가격 입력";
 
     private final JavaPlugin plugin;
+    private final MerchantKeys keys;
 
-    // 플레이어가 "어느 npc shop", "어느 슬롯 아이템" 가격을 수정 중인지
-    private final Map<UUID, EditContext> editing = new HashMap<>();
-
-    public MerchantPriceInputListener(JavaPlugin plugin) {
+    public MerchantPriceInputListener(JavaPlugin plugin, MerchantKeys keys) {
         this.plugin = plugin;
+        this.keys = keys;
     }
 
-    private record EditContext(int npcId, int slot, Inventory editorInv, ItemStack baseItem) {}
-
-    @EventHandler
-    public void onEditorClick(InventoryClickEvent e) {
-        if (!(e.getWhoClicked() instanceof Player p)) return;
-
-        String title = e.getView().getTitle();
-        if (!isEditorTitle(title)) return;
-
+    public void onEditorClick(Player p, MerchantGui gui, InventoryClickEvent e) {
         if (e.getClickedInventory() == null) return;
 
         boolean top = (e.getClickedInventory() == e.getView().getTopInventory());
@@ -45,32 +38,12 @@ public class MerchantPriceInputListener implements Listener {
         ItemStack clicked = e.getCurrentItem();
         if (clicked == null || clicked.getType() == Material.AIR) return;
 
-        int slot = e.getSlot();
-
-        int npcId = parseNpcIdFromTitle(title);
-        if (npcId < 0) {
-            p.sendMessage("§c에디터 제목에서 npcId를 못 읽었어. (예: [편집] 상인 #2)");
-            return;
-        }
-
-        openPriceAnvil(p, npcId, slot, e.getView().getTopInventory(), clicked.clone());
-    }
-
-    private boolean isEditorTitle(String title) {
-        if (title == null) return false;
-        String plain = stripColor(title);
-        return plain.contains("편집") && plain.contains("상인");
-    }
-
-    private int parseNpcIdFromTitle(String title) {
-        String plain = stripColor(title).trim();
-        String digits = plain.replaceAll("[^0-9]", "");
-        if (digits.isEmpty()) return -1;
-        try { return Integer.parseInt(digits); } catch (Exception e) { return -1; }
+        openPriceAnvil(p, gui.npcId(), e.getSlot(), e.getView().getTopInventory(), clicked.clone());
     }
 
     private void openPriceAnvil(Player p, int npcId, int slot, Inventory editorInv, ItemStack baseItem) {
-        Inventory anvil = Bukkit.createInventory(p, InventoryType.ANVIL, ANVIL_TITLE);
+        MerchantGui gui = MerchantGui.priceInput(npcId, slot, editorInv, baseItem);
+        Inventory anvil = gui.bind(Bukkit.createInventory(gui, InventoryType.ANVIL, ANVIL_TITLE));
 
         ItemStack paper = new ItemStack(Material.PAPER);
         ItemMeta pm = paper.getItemMeta();
@@ -81,20 +54,10 @@ public class MerchantPriceInputListener implements Listener {
         }
         anvil.setItem(0, paper);
 
-        editing.put(p.getUniqueId(), new EditContext(npcId, slot, editorInv, baseItem));
         p.openInventory(anvil);
     }
 
-    @EventHandler
-    public void onPrepareAnvil(PrepareAnvilEvent e) {
-        if (!(e.getView().getPlayer() instanceof Player p)) return;
-
-        EditContext ctx = editing.get(p.getUniqueId());
-        if (ctx == null) return;
-
-        String title = e.getView().getTitle();
-        if (title == null || !title.equals(ANVIL_TITLE)) return;
-
+    public void onPrepareAnvil(MerchantGui gui, PrepareAnvilEvent e) {
         AnvilInventory inv = e.getInventory();
 
         String text;
@@ -114,16 +77,7 @@ public class MerchantPriceInputListener implements Listener {
         e.setResult(makeResultItem("§a설정: §e" + price + " §a에메랄드", Material.LIME_WOOL));
     }
 
-    @EventHandler
-    public void onAnvilClick(InventoryClickEvent e) {
-        if (!(e.getWhoClicked() instanceof Player p)) return;
-
-        EditContext ctx = editing.get(p.getUniqueId());
-        if (ctx == null) return;
-
-        String title = e.getView().getTitle();
-        if (title == null || !title.equals(ANVIL_TITLE)) return;
-
+    public void onAnvilClick(Player p, MerchantGui gui, InventoryClickEvent e) {
         e.setCancelled(true);
 
         // 결과칸(2)만 확정
@@ -138,33 +92,33 @@ public class MerchantPriceInputListener implements Listener {
         int price = safeParseInt(text);
         if (price <= 0) { p.sendMessage("§c가격은 1 이상의 숫자만 가능!"); return; }
 
-        ItemStack newItem = applyPriceLore(ctx.baseItem.clone(), price);
-        ctx.editorInv.setItem(ctx.slot, newItem);
+        // 로어만이 아니라 merchant_price 태그까지 (에디터 저장이 태그로 가격을 읽음)
+        ItemStack newItem = keys.applyPriceTag(gui.baseItem().clone(), price, true);
+        gui.editor().setItem(gui.slot(), newItem);
 
         p.sendMessage("§a가격 설정 완료: §e" + price);
 
         p.closeInventory();
-        Bukkit.getScheduler().runTask(plugin, () -> p.openInventory(ctx.editorInv));
-    }
-
-    @EventHandler
-    public void onClose(InventoryCloseEvent e) {
-        if (!(e.getPlayer() instanceof Player p)) return;
-
-        String title = e.getView().getTitle();
-        if (title != null && title.equals(ANVIL_TITLE)) {
-            editing.remove(p.getUniqueId());
-        }
+        Bukkit.getScheduler().runTask(plugin, () -> p.openInventory(gui.editor()));
     }
 
     // -------------------------
     // Utils
     // -------------------------
+
+    /** 숫자만 골라 읽음 (없거나 너무 크면 -1) */
     private int safeParseInt(String s) {
         if (s == null) return -1;
-        String digits = s.replaceAll("[^0-9]", "");
-        if (digits.isEmpty()) return -1;
-        try { return Integer.parseInt(digits); } catch (Exception e) { return -1; }
+        long v = 0;
+        int digits = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') continue;
+            v = v * 10 + (ch - '0');
+            if (v > Integer.MAX_VALUE) return -1;
+            digits++;
+        }
+        return digits == 0 ? -1 : (int) v;
     }
 
     private ItemStack makeResultItem(String name, Material mat) {
@@ -176,29 +130,4 @@ public class MerchantPriceInputListener implements Listener {
         }
         return it;
     }
-
-    private ItemStack applyPriceLore(ItemStack item, int price) {
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return item;
-
-        List<String> lore = meta.getLore();
-        List<String> newLore = new ArrayList<>();
-        if (lore != null) {
-            for (String line : lore) {
-                String plain = stripColor(line);
-                if (plain.contains("가격")) continue;
-                newLore.add(line);
-            }
-        }
-
-        newLore.add("§a가격: §e" + price + " §a에메랄드");
-        meta.setLore(newLore);
-        item.setItemMeta(meta);
-        return item;
-    }
-
-    private String stripColor(String s) {
-        if (s == null) return "";
-        return s.replaceAll("§[0-9a-fk-orA-FK-OR]", "");
-    }
 }
\ No newline at end of file
@@ -1,57 +1,344 @@
 package com.example.feudal.merchant;
 
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
 
+/**
+ * 상점 저장소 (merchant_shops / merchant_shop_items, NPC 한 명 = 상점 한 줄 + 슬롯별 한 줄).
+ * - reload 때 전부 읽어 NPC별 레코드로 들고 있음 (아이템은 serializeAsBytes 바이트 그대로)
+ * - 에디터 저장은 메모리만 바꾸고 표시만 해두고, save-delay-ms 안에 바뀐 상점을 모아
+ *   DB 스레드에서 한 트랜잭션으로 씀 (바뀐 상점만, 파일 전체 재작성 없음)
+ * - 예전 shops.yml 이 있으면 DB 에 없는 상점만 한 번 가져오고 shops.yml.imported 로 이름을 바꿈
+ * 메인 스레드에서만 호출.
+ */
 public class MerchantShopStorage {
 
+    private record SlotRow(int slot, int price, byte[] item) {}
+
+    private record ShopRow(String title, int size, List<SlotRow> items) {}
+
     private final JavaPlugin plugin;
-    private final File file;
-    private YamlConfiguration yml;
+    private final DbExecutor db;
+    private final MerchantKeys keys;
+    private final MerchantStock stock;
+    private final long saveDelayTicks;
 
-    public MerchantShopStorage(JavaPlugin plugin) {
+    private final Map<Integer, ShopRow> shops = new HashMap<>();
+    // npcId -> 진열 완성본. 저장/리로드 때만 비움
+    private final Map<Integer, ShopCatalog> catalogs = new HashMap<>();
+    // DB 에 아직 안 쓴 상점 (shops 에 없으면 삭제)
+    private final Set<Integer> dirty = new HashSet<>();
+    private BukkitTask saveTask;
+
+    public MerchantShopStorage(JavaPlugin plugin, DbExecutor db, MerchantKeys keys, MerchantStock stock) {
         this.plugin = plugin;
-        this.file = new File(plugin.getDataFolder(), "shops.yml");
-        reload();
+        this.db = db;
+        this.keys = keys;
+        this.stock = stock;
+        this.saveDelayTicks = Math.max(1L, plugin.getConfig().getLong("merchant.save-delay-ms", 2000L) / 50L);
+    }
+
+    /** 저장 대기 중인 건 먼저 쓰고 DB 에서 전부 다시 읽음 (+ 예전 shops.yml 가져오기) */
+    public void reload() throws SQLException {
+        flush();
+        // 앞서 큐에 들어간 saveAsync 가 아직 커밋 전일 수 있음 -> 읽기 풀 말고 writer 에서 (그 뒤에 줄 서서) 조회
+        Map<Integer, ShopRow> loaded = db.call(MerchantShopStorage::selectAll);
+        importYaml(loaded);
+
+        shops.clear();
+        shops.putAll(loaded);
+        catalogs.clear();
+    }
+
+    public String getTitle(int npcId) {
+        ShopRow row = shops.get(npcId);
+        return row == null ? defaultTitle(npcId) : row.title();
+    }
+
+    public int getSize(int npcId) {
+        ShopRow row = shops.get(npcId);
+        return row == null ? 54 : row.size();
+    }
+
+    /** 상점 화면. 처음 열 때 한 번만 역직렬화 + 가격 태그 */
+    public ShopCatalog catalog(int npcId) {
+        return catalogs.computeIfAbsent(npcId, this::buildCatalog);
+    }
+
+    private ShopCatalog buildCatalog(int npcId) {
+        int size = getSize(npcId);
+        ItemStack[] contents = new ItemStack[size];
+        ItemStack[] goods = new ItemStack[size];
+        int[] prices = new int[size];
+
+        ShopRow row = shops.get(npcId);
+        if (row != null) {
+            for (SlotRow sr : row.items()) {
+                if (sr.slot() >= size) continue;
+
+                ItemStack item;
+                try {
+                    item = ItemStack.deserializeBytes(sr.item());
+                } catch (Exception e) {
+                    plugin.getLogger().warning("[MerchantShopStorage] 아이템 읽기 실패 npc=" + npcId + " slot=" + sr.slot() + ": " + e.getMessage());
+                    continue;
+                }
+                goods[sr.slot()] = keys.stripPriceTag(item.clone());
+                contents[sr.slot()] = keys.applyPriceTag(item, sr.price(), true);
+                prices[sr.slot()] = sr.price();
+            }
+        }
+        return new ShopCatalog(getTitle(npcId), size, contents, goods, prices);
+    }
+
+    public void saveFromEditorInventory(int npcId, int size, String title, ItemStack[] contents, PriceReader priceReader) {
+        ShopRow old = shops.get(npcId);
+        boolean[] sameItem = new boolean[Math.min(contents.length, size)];
+
+        List<SlotRow> items = new ArrayList<>();
+        for (int slot = 0; slot < Math.min(contents.length, size); slot++) {
+            ItemStack it = contents[slot];
+            if (it == null || it.getType() == Material.AIR) continue;
+
+            int price = priceReader.getPrice(it);
+            if (price <= 0) continue;
+
+            SlotRow sr = new SlotRow(slot, price, it.serializeAsBytes());
+            items.add(sr);
+            sameItem[slot] = sameGoods(old, sr, it);
+        }
+
+        shops.put(npcId, new ShopRow(title, clampSize(size), List.copyOf(items)));
+        catalogs.remove(npcId);
+        // 재고 규칙은 같은 상품이 그대로 남은 칸만 유지 (빠지거나 바뀐 칸의 제한이 다른 상품에 붙지 않게)
+        stock.retainRules(npcId, sameItem);
+        dirty.add(npcId);
+        saveLater();
+    }
+
+    /** NPC 삭제: 상점과 재고 규칙을 같이 지움 */
+    public void remove(int npcId) {
+        catalogs.remove(npcId);
+        stock.clearAll(npcId);
+        if (shops.remove(npcId) == null) return;
+        dirty.add(npcId);
+        saveLater();
     }
 
-    public void reload() {
-        if (!plugin.getDataFolder().exists()) plugin.getDataFolder().mkdirs();
-        if (!file.exists()) {
+    /** 저장 전 같은 칸 상품과 가격 태그를 빼고 비교 (가격만 바뀐 건 같은 상품) */
+    private boolean sameGoods(ShopRow old, SlotRow now, ItemStack nowItem) {
+        if (old == null) return false;
+        for (SlotRow sr : old.items()) {
+            if (sr.slot() != now.slot()) continue;
+            if (Arrays.equals(sr.item(), now.item())) return true;
             try {
-                file.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().warning("[MerchantShopStorage] shops.yml 생성 실패: " + e.getMessage());
+                ItemStack before = keys.stripPriceTag(ItemStack.deserializeBytes(sr.item()));
+                return before.isSimilar(keys.stripPriceTag(nowItem.clone()));
+            } catch (Exception e) {
+                return false;
             }
         }
-        yml = YamlConfiguration.loadConfiguration(file);
+        return false;
     }
 
-    public String getTitle(int npcId) {
-        String path = "npc-" + npcId + ".title";
-        return yml.getString(path, "§6상인 #" + npcId);
+    /** 저장 대기 중인 상점을 지금 씀 (동기, onDisable 에서 DB 닫기 전에 호출) */
+    public void flush() throws SQLException {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+        if (dirty.isEmpty()) return;
+
+        Map<Integer, ShopRow> batch = drainDirty();
+        try {
+            db.tx(c -> {
+                write(c, batch);
+                return null;
+            });
+        } catch (SQLException e) {
+            dirty.addAll(batch.keySet());
+            throw e;
+        }
     }
 
-    public int getSize(int npcId) {
-        int size = yml.getInt("npc-" + npcId + ".size", 54);
-        // 9의 배수로 보정(최소 9, 최대 54)
-        size = Math.max(9, Math.min(54, size));
-        size = ((size + 8) / 9) * 9;
-        return size;
+    // --------------------
+    // 디바운스 저장
+    // --------------------
+    private void saveLater() {
+        if (saveTask != null) return;
+        saveTask = Bukkit.getScheduler().runTaskLater(plugin, this::saveAsync, saveDelayTicks);
+    }
+
+    private void saveAsync() {
+        saveTask = null;
+        if (dirty.isEmpty()) return;
+
+        Map<Integer, ShopRow> batch = drainDirty();
+        db.whenDone(
+                db.asyncTx(c -> {
+                    write(c, batch);
+                    return null;
+                }),
+                ignored -> {},
+                err -> {
+                    plugin.getLogger().warning("[MerchantShopStorage] 상점 저장 실패, 다시 시도함: " + err.getMessage());
+                    dirty.addAll(batch.keySet());
+                    saveLater();
+                }
+        );
+    }
+
+    /** 지금 시점의 레코드(불변)를 떼어 DB 스레드로 넘김 */
+    private Map<Integer, ShopRow> drainDirty() {
+        Map<Integer, ShopRow> batch = new HashMap<>();
+        for (int npcId : dirty) batch.put(npcId, shops.get(npcId)); // null = 삭제
+        dirty.clear();
+        return batch;
     }
 
-    public Map<Integer, ShopItem> loadItems(int npcId) {
-        Map<Integer, ShopItem> map = new HashMap<>();
-        String base = "npc-" + npcId + ".items";
+    // --------------------
+    // DB
+    // --------------------
+    private static Map<Integer, ShopRow> selectAll(StatementCache conn) throws SQLException {
+        Map<Integer, String> titles = new HashMap<>();
+        Map<Integer, Integer> sizes = new HashMap<>();
+        Map<Integer, List<SlotRow>> items = new HashMap<>();
+
+        try (StatementCache.Stmt ps = conn.prepare("SELECT npc_id, title, size FROM merchant_shops")) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    titles.put(rs.getInt("npc_id"), rs.getString("title"));
+                    sizes.put(rs.getInt("npc_id"), rs.getInt("size"));
+                }
+            }
+        }
+        try (StatementCache.Stmt ps = conn.prepare("SELECT npc_id, slot, price, item FROM merchant_shop_items")) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.computeIfAbsent(rs.getInt("npc_id"), k -> new ArrayList<>())
+                            .add(new SlotRow(rs.getInt("slot"), rs.getInt("price"), rs.getBytes("item")));
+                }
+            }
+        }
+
+        Map<Integer, ShopRow> out = new HashMap<>();
+        for (var e : titles.entrySet()) {
+            int npcId = e.getKey();
+            out.put(npcId, new ShopRow(e.getValue(), clampSize(sizes.get(npcId)),
+                    List.copyOf(items.getOrDefault(npcId, List.of()))));
+        }
+        return out;
+    }
+
+    /** DB 스레드에서만 실행 (트랜잭션 안). 값이 null 인 상점은 삭제 */
+    private static void write(StatementCache conn, Map<Integer, ShopRow> batch) throws SQLException {
+        try (StatementCache.Stmt ps = conn.prepare("""
+            INSERT INTO merchant_shops(npc_id, title, size) VALUES(?, ?, ?)
+            ON CONFLICT(npc_id) DO UPDATE SET title = excluded.title, size = excluded.size
+        """)) {
+            for (var e : batch.entrySet()) {
+                if (e.getValue() == null) continue;
+                ps.setInt(1, e.getKey());
+                ps.setString(2, e.getValue().title());
+                ps.setInt(3, e.getValue().size());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (StatementCache.Stmt ps = conn.prepare("DELETE FROM merchant_shop_items WHERE npc_id = ?")) {
+            for (int npcId : batch.keySet()) {
+                ps.setInt(1, npcId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (StatementCache.Stmt ps = conn.prepare(
+                "INSERT INTO merchant_shop_items(npc_id, slot, price, item) VALUES(?, ?, ?, ?)")) {
+            for (var e : batch.entrySet()) {
+                if (e.getValue() == null) continue;
+                for (SlotRow sr : e.getValue().items()) {
+                    ps.setInt(1, e.getKey());
+                    ps.setInt(2, sr.slot());
+                    ps.setInt(3, sr.price());
+                    ps.setBytes(4, sr.item());
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+
+        try (StatementCache.Stmt ps = conn.prepare("DELETE FROM merchant_shops WHERE npc_id = ?")) {
+            for (var e : batch.entrySet()) {
+                if (e.getValue() != null) continue;
+                ps.setInt(1, e.getKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // --------------------
+    // shops.yml 가져오기 (한 번)
+    // --------------------
+    private void importYaml(Map<Integer, ShopRow> loaded) throws SQLException {
+        File file = new File(plugin.getDataFolder(), "shops.yml");
+        if (!file.exists()) return;
+
+        YamlConfiguration yml = YamlConfiguration.loadConfiguration(file);
+        Map<Integer, ShopRow> imported = new HashMap<>();
+        for (String root : yml.getKeys(false)) {
+            if (!root.startsWith("npc-")) continue;
+
+            int npcId;
+            try { npcId = Integer.parseInt(root.substring(4)); }
+            catch (NumberFormatException ignored) { continue; }
+            if (loaded.containsKey(npcId)) continue; // DB 쪽이 더 최신
+
+            imported.put(npcId, new ShopRow(
+                    yml.getString(root + ".title", defaultTitle(npcId)),
+                    clampSize(yml.getInt(root + ".size", 54)),
+                    List.copyOf(yamlItems(yml, root + ".items"))
+            ));
+        }
+
+        if (!imported.isEmpty()) {
+            db.tx(c -> {
+                write(c, imported);
+                return null;
+            });
+            loaded.putAll(imported);
+        }
+
+        try {
+            Files.move(file.toPath(), new File(plugin.getDataFolder(), "shops.yml.imported").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[MerchantShopStorage] shops.yml 이름 변경 실패 (다음 시작 때 DB 에 없는 상점만 다시 가져옴): " + e.getMessage());
+        }
+        plugin.getLogger().info("[MerchantShopStorage] shops.yml 에서 상점 " + imported.size() + "개 가져옴");
+    }
+
+    private List<SlotRow> yamlItems(YamlConfiguration yml, String base) {
+        List<SlotRow> out = new ArrayList<>();
         ConfigurationSection sec = yml.getConfigurationSection(base);
-        if (sec == null) return map;
+        if (sec == null) return out;
 
         for (String key : sec.getKeys(false)) {
             String p = base + "." + key;
@@ -65,48 +352,31 @@ public class MerchantShopStorage {
                     //noinspection unchecked
                     item = ItemStack.deserialize((Map<String, Object>) rawMap);
                 } catch (Exception ignored) {}
+            } else if (raw instanceof ItemStack is) {
+                item = is;
             }
 
             if (slot < 0 || slot >= 54) continue;
             if (price <= 0) continue;
             if (item == null || item.getType() == Material.AIR) continue;
 
-            map.put(slot, new ShopItem(item, price));
+            out.add(new SlotRow(slot, price, item.serializeAsBytes()));
         }
-        return map;
+        return out;
     }
 
-    public void saveFromEditorInventory(int npcId, int size, String title, ItemStack[] contents, PriceReader priceReader) {
-        String root = "npc-" + npcId;
-        yml.set(root + ".title", title);
-        yml.set(root + ".size", size);
-
-        // 기존 items 싹 비우고 다시 저장
-        yml.set(root + ".items", null);
-
-        int idx = 0;
-        for (int slot = 0; slot < Math.min(contents.length, size); slot++) {
-            ItemStack it = contents[slot];
-            if (it == null || it.getType() == Material.AIR) continue;
-
-            int price = priceReader.getPrice(it);
-            if (price <= 0) continue;
-
-            String p = root + ".items." + idx;
-            yml.set(p + ".slot", slot);
-            yml.set(p + ".price", price);
-            yml.set(p + ".item", it.serialize());
-            idx++;
-        }
-
-        try {
-            yml.save(file);
-        } catch (IOException e) {
-            plugin.getLogger().warning("[MerchantShopStorage] shops.yml 저장 실패: " + e.getMessage());
-        }
+    // --------------------
+    // 내부
+    // --------------------
+    private static String defaultTitle(int npcId) {
+        return "§6상인 #" + npcId;
     }
 
-    public record ShopItem(ItemStack item, int price) {}
+    /** 9의 배수로 보정(최소 9, 최대 54) */
+    private static int clampSize(int size) {
+        size = Math.max(9, Math.min(54, size));
+        return ((size + 8) / 9) * 9;
+    }
 
     @FunctionalInterface
     public interface PriceReader {
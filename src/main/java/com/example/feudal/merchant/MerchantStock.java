@@ -0,0 +1,302 @@
+package com.example.feudal.merchant;
+
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
+import com.example.feudal.util.TimingWheel;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 상점 슬롯별 재고 (merchant_stock, 메인 스레드 전용).
+ * - 규칙이 없는 슬롯은 무한 재고
+ * - 구매는 메모리에서 바로 차감하고, 바뀐 슬롯만 stock-flush-ms 마다 DB 스레드에서 한 트랜잭션으로
+ * - 보충은 다음 보충 시각으로 타이밍 휠에 걸어두고 만기된 슬롯만 처리 (상점 전체 스캔 없음)
+ *   가득 찬 슬롯은 휠에서 빠져 있다가 팔리면 그때 다음 보충을 예약
+ * - 늦게 처리되면(서버 꺼짐/렉) 밀린 주기 수만큼 한 번에 보충
+ */
+public class MerchantStock {
+
+    private static final long WHEEL_TICK_MS = 1000L;
+    private static final int WHEEL_SLOTS = 1024;
+    private static final int MAX_SLOTS = 54;
+
+    private static final class Slot {
+        final int npcId, slot;
+        int stock, max, restockAmount;
+        long intervalMs, nextAt; // nextAt 0 = 예약 없음 (가득 참/보충 안 함)
+
+        Slot(int npcId, int slot) {
+            this.npcId = npcId;
+            this.slot = slot;
+        }
+    }
+
+    private record Row(int npcId, int slot, int stock, int max, int restockAmount, long intervalMs, long nextAt) {}
+
+    private final JavaPlugin plugin;
+    private final DbExecutor db;
+    private final long flushIntervalMs;
+
+    private final Map<Integer, Slot> slots = new HashMap<>();  // id(npcId*54+slot) -> 재고
+    private final TimingWheel restocks = new TimingWheel(WHEEL_TICK_MS, WHEEL_SLOTS);
+    private final Set<Integer> dirty = new HashSet<>();        // DB 에 아직 안 쓴 슬롯 (지워진 것 포함)
+
+    private BukkitTask timer;
+    private long lastFlushAt;
+
+    public MerchantStock(JavaPlugin plugin, DbExecutor db) {
+        this.plugin = plugin;
+        this.db = db;
+        this.flushIntervalMs = Math.max(1000L, plugin.getConfig().getLong("merchant.stock-flush-ms", 5000L));
+    }
+
+    private static int id(int npcId, int slot) {
+        return npcId * MAX_SLOTS + slot;
+    }
+
+    public void load() throws SQLException {
+        List<Row> rows = db.read(MerchantStock::selectAll);
+
+        long now = System.currentTimeMillis();
+        for (Row r : rows) {
+            if (r.slot() < 0 || r.slot() >= MAX_SLOTS) continue;
+
+            Slot s = new Slot(r.npcId(), r.slot());
+            s.stock = r.stock();
+            s.max = r.max();
+            s.restockAmount = r.restockAmount();
+            s.intervalMs = r.intervalMs();
+            s.nextAt = r.nextAt();
+            slots.put(id(s.npcId, s.slot), s);
+
+            // 꺼져 있던 동안 밀린 보충은 여기서 한 번에
+            if (s.nextAt > 0 && s.nextAt <= now) restock(id(s.npcId, s.slot));
+            else if (s.nextAt > 0) restocks.schedule(id(s.npcId, s.slot), s.nextAt);
+        }
+    }
+
+    /** 1초마다 만기된 보충 처리 + flush 주기가 되면 바뀐 재고 기록 */
+    public void start() {
+        lastFlushAt = System.currentTimeMillis();
+        timer = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            long now = System.currentTimeMillis();
+            restocks.advance(now, this::restock);
+            if (now - lastFlushAt >= flushIntervalMs) {
+                lastFlushAt = now;
+                flushAsync();
+            }
+        }, 20L, 20L);
+    }
+
+    // --------------------
+    // 조회 / 구매
+    // --------------------
+
+    /** 남은 재고 (규칙 없으면 -1 = 무한) */
+    public int available(int npcId, int slot) {
+        Slot s = slots.get(id(npcId, slot));
+        return s == null ? -1 : s.stock;
+    }
+
+    /** 다음 보충까지 남은 ms (예약 없으면 -1) */
+    public long untilRestock(int npcId, int slot, long now) {
+        Slot s = slots.get(id(npcId, slot));
+        return s == null || s.nextAt <= 0 ? -1 : Math.max(0, s.nextAt - now);
+    }
+
+    /**
+     * 한 개 차감하고 남은 재고 리턴 (무한이면 -1, 품절이면 차감 없이 -2).
+     * 메인 스레드 전용이라 available 확인 ~ take 사이에 다른 구매가 끼어들 수 없음.
+     */
+    public int take(int npcId, int slot, long now) {
+        Slot s = slots.get(id(npcId, slot));
+        if (s == null) return -1;
+        if (s.stock <= 0) return -2;
+
+        s.stock--;
+        if (s.nextAt <= 0 && s.restockAmount > 0 && s.intervalMs > 0) {
+            s.nextAt = now + s.intervalMs;
+            restocks.schedule(id(npcId, slot), s.nextAt);
+        }
+        dirty.add(id(npcId, slot));
+        return s.stock;
+    }
+
+    // --------------------
+    // 규칙 설정 (명령)
+    // --------------------
+
+    /** 재고 규칙 설정: 최대 재고로 채우고 보충은 intervalMs 마다 amount 개 (amount/interval 0 이면 보충 없음) */
+    public void setRule(int npcId, int slot, int max, int amount, long intervalMs) {
+        int id = id(npcId, slot);
+        Slot s = new Slot(npcId, slot);
+        s.stock = max;
+        s.max = max;
+        s.restockAmount = Math.max(0, amount);
+        s.intervalMs = Math.max(0L, intervalMs);
+        slots.put(id, s);
+        restocks.cancel(id);
+        dirty.add(id);
+    }
+
+    /** 에디터 저장 후: keep[slot] 이 아닌 슬롯(아이템이 빠졌거나 바뀐 칸)의 규칙 삭제 */
+    public void retainRules(int npcId, boolean[] keep) {
+        for (int slot = 0; slot < MAX_SLOTS; slot++) {
+            if (slot < keep.length && keep[slot]) continue;
+            clearRule(npcId, slot);
+        }
+    }
+
+    /** NPC/상점 삭제 */
+    public void clearAll(int npcId) {
+        retainRules(npcId, new boolean[0]);
+    }
+
+    /** 규칙 삭제 -> 무한 재고 */
+    public boolean clearRule(int npcId, int slot) {
+        int id = id(npcId, slot);
+        if (slots.remove(id) == null) return false;
+        restocks.cancel(id);
+        dirty.add(id);
+        return true;
+    }
+
+    // --------------------
+    // 보충
+    // --------------------
+    private void restock(int id) {
+        Slot s = slots.get(id);
+        if (s == null || s.nextAt <= 0) return;
+
+        long now = System.currentTimeMillis();
+        if (s.restockAmount <= 0 || s.intervalMs <= 0) {
+            s.nextAt = 0;
+            dirty.add(id);
+            return;
+        }
+
+        // 밀린 주기 수 (정시면 1)
+        long periods = 1 + Math.max(0, now - s.nextAt) / s.intervalMs;
+        s.stock = (int) Math.min(s.max, s.stock + periods * s.restockAmount);
+        s.nextAt = s.stock >= s.max ? 0 : s.nextAt + periods * s.intervalMs;
+        if (s.nextAt > 0) restocks.schedule(id, s.nextAt);
+        dirty.add(id);
+    }
+
+    // --------------------
+    // 기록
+    // --------------------
+
+    /** 타이머 중지 후 남은 변경을 지금 씀 (onDisable 에서 DB 닫기 전에 호출) */
+    public void close() throws SQLException {
+        if (timer != null) timer.cancel();
+        if (dirty.isEmpty()) return;
+
+        Batch batch = drainDirty();
+        try {
+            db.tx(c -> {
+                write(c, batch);
+                return null;
+            });
+        } catch (SQLException e) {
+            dirty.addAll(batch.ids());
+            throw e;
+        }
+    }
+
+    private void flushAsync() {
+        if (dirty.isEmpty()) return;
+
+        Batch batch = drainDirty();
+        db.whenDone(
+                db.asyncTx(c -> {
+                    write(c, batch);
+                    return null;
+                }),
+                ignored -> {},
+                err -> {
+                    plugin.getLogger().warning("[MerchantStock] 재고 기록 실패, 다음 주기에 다시: " + err.getMessage());
+                    dirty.addAll(batch.ids());
+                }
+        );
+    }
+
+    private record Batch(List<Row> upserts, List<int[]> deletes, Set<Integer> ids) {}
+
+    /** 지금 시점 값을 복사해서 DB 스레드로 넘김 */
+    private Batch drainDirty() {
+        List<Row> upserts = new ArrayList<>();
+        List<int[]> deletes = new ArrayList<>();
+        for (int id : dirty) {
+            Slot s = slots.get(id);
+            if (s == null) {
+                deletes.add(new int[]{id / MAX_SLOTS, id % MAX_SLOTS});
+                continue;
+            }
+            upserts.add(new Row(s.npcId, s.slot, s.stock, s.max, s.restockAmount, s.intervalMs, s.nextAt));
+        }
+        Batch batch = new Batch(upserts, deletes, Set.copyOf(dirty));
+        dirty.clear();
+        return batch;
+    }
+
+    private static List<Row> selectAll(StatementCache conn) throws SQLException {
+        List<Row> out = new ArrayList<>();
+        try (StatementCache.Stmt ps = conn.prepare("""
+            SELECT npc_id, slot, stock, max_stock, restock_amount, restock_interval_ms, next_restock_at
+            FROM merchant_stock
+        """)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new Row(rs.getInt("npc_id"), rs.getInt("slot"), rs.getInt("stock"), rs.getInt("max_stock"),
+                            rs.getInt("restock_amount"), rs.getLong("restock_interval_ms"), rs.getLong("next_restock_at")));
+                }
+            }
+        }
+        return out;
+    }
+
+    /** DB 스레드에서만 실행 (트랜잭션 안) */
+    private static void write(StatementCache conn, Batch batch) throws SQLException {
+        if (!batch.upserts().isEmpty()) {
+            try (StatementCache.Stmt ps = conn.prepare("""
+                INSERT INTO merchant_stock(npc_id, slot, stock, max_stock, restock_amount, restock_interval_ms, next_restock_at)
+                VALUES(?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT(npc_id, slot) DO UPDATE SET
+                  stock = excluded.stock,
+                  max_stock = excluded.max_stock,
+                  restock_amount = excluded.restock_amount,
+                  restock_interval_ms = excluded.restock_interval_ms,
+                  next_restock_at = excluded.next_restock_at
+            """)) {
+                for (Row r : batch.upserts()) {
+                    ps.setInt(1, r.npcId());
+                    ps.setInt(2, r.slot());
+                    ps.setInt(3, r.stock());
+                    ps.setInt(4, r.max());
+                    ps.setInt(5, r.restockAmount());
+                    ps.setLong(6, r.intervalMs());
+                    ps.setLong(7, r.nextAt());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+
+        if (!batch.deletes().isEmpty()) {
+            try (StatementCache.Stmt ps = conn.prepare("DELETE FROM merchant_stock WHERE npc_id = ? AND slot = ?")) {
+                for (int[] d : batch.deletes()) {
+                    ps.setInt(1, d[0]);
+                    ps.setInt(2, d[1]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.example.feudal.merchant;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * NPC 한 명의 상점 화면 (불변).
+ * 역직렬화 + 가격 태그까지 끝낸 진열 배열을 들고 있고, 열 때는 새 인벤토리에 setContents 한 번.
+ * 인벤토리가 아이템을 복사해서 넣으므로 배열/아이템은 공유해도 안 바뀐다 (밖으로 내주지 않음).
+ * 구매 때는 슬롯 번호로 가격/지급 아이템을 바로 찾는다 (로어 파싱 없음).
+ */
+public final class ShopCatalog {
+
+    private final String title;
+    private final int size;
+    private final ItemStack[] contents;
+    private final ItemStack[] goods;  // 가격 태그 뗀 지급용
+    private final int[] prices;       // 없으면 0
+
+    ShopCatalog(String title, int size, ItemStack[] contents, ItemStack[] goods, int[] prices) {
+        this.title = title;
+        this.size = size;
+        this.contents = contents;
+        this.goods = goods;
+        this.prices = prices;
+    }
+
+    public String title() { return title; }
+    public int size() { return size; }
+
+    /** 진열 아이템이 들어간 새 인벤토리 (holder/제목만 바꿔서 에디터에도 사용) */
+    public Inventory newInventory(MerchantGui gui, String viewTitle) {
+        Inventory inv = gui.bind(Bukkit.createInventory(gui, size, viewTitle));
+        inv.setContents(contents);
+        return inv;
+    }
+
+    /** 슬롯 가격 (상품 없으면 -1) */
+    public int price(int slot) {
+        if (slot < 0 || slot >= size || prices[slot] <= 0) return -1;
+        return prices[slot];
+    }
+
+    /** 클릭한 아이템이 지금 카탈로그의 그 슬롯 상품인지 (열어둔 뒤 상점이 바뀐 경우 걸러냄) */
+    public boolean matches(int slot, ItemStack clicked) {
+        return price(slot) > 0 && contents[slot].isSimilar(clicked);
+    }
+
+    /** 지급할 아이템 (새 복사본) */
+    public ItemStack goods(int slot) {
+        return goods[slot].clone();
+    }
+}
\ No newline at end of file
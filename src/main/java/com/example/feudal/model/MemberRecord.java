@@ -0,0 +1,64 @@
+package com.example.feudal.model;
+
+import java.util.UUID;
+
+/** members 테이블 한 줄 (불변, 변경은 with* 로 새로 만듦) */
+public record MemberRecord(
+        UUID uuid,
+        Integer familyId,
+        Rank rank,
+        Job job,
+        boolean serf,
+        int serfMissCount,
+        int serfDeliverPoints,
+        long serfNextDueAt,
+        long serfTaxDiscountUntil,
+        long serfLastWarnAt
+) {
+
+    /** setMember 로 새로 들어온 멤버 (DB 기본값과 동일) */
+    public static MemberRecord newMember(UUID uuid, int familyId, Rank rank) {
+        return new MemberRecord(uuid, familyId, rank, Job.NONE, false, 0, 0, 0L, 0L, 0L);
+    }
+
+    public MemberRecord withFamily(int familyId, Rank rank) {
+        return new MemberRecord(uuid, familyId, rank, job, serf,
+                serfMissCount, serfDeliverPoints, serfNextDueAt, serfTaxDiscountUntil, serfLastWarnAt);
+    }
+
+    public MemberRecord withJob(Job job) {
+        return new MemberRecord(uuid, familyId, rank, job, serf,
+                serfMissCount, serfDeliverPoints, serfNextDueAt, serfTaxDiscountUntil, serfLastWarnAt);
+    }
+
+    /** 농노가 되면 직업은 NONE */
+    public MemberRecord withSerf(boolean serf) {
+        return new MemberRecord(uuid, familyId, rank, serf ? Job.NONE : job, serf,
+                serfMissCount, serfDeliverPoints, serfNextDueAt, serfTaxDiscountUntil, serfLastWarnAt);
+    }
+
+    public MemberRecord withSerfMissCount(int count) {
+        return new MemberRecord(uuid, familyId, rank, job, serf,
+                count, serfDeliverPoints, serfNextDueAt, serfTaxDiscountUntil, serfLastWarnAt);
+    }
+
+    public MemberRecord withSerfDeliverPoints(int points) {
+        return new MemberRecord(uuid, familyId, rank, job, serf,
+                serfMissCount, points, serfNextDueAt, serfTaxDiscountUntil, serfLastWarnAt);
+    }
+
+    public MemberRecord withSerfNextDueAt(long at) {
+        return new MemberRecord(uuid, familyId, rank, job, serf,
+                serfMissCount, serfDeliverPoints, at, serfTaxDiscountUntil, serfLastWarnAt);
+    }
+
+    public MemberRecord withSerfTaxDiscountUntil(long until) {
+        return new MemberRecord(uuid, familyId, rank, job, serf,
+                serfMissCount, serfDeliverPoints, serfNextDueAt, until, serfLastWarnAt);
+    }
+
+    public MemberRecord withSerfLastWarnAt(long at) {
+        return new MemberRecord(uuid, familyId, rank, job, serf,
+                serfMissCount, serfDeliverPoints, serfNextDueAt, serfTaxDiscountUntil, at);
+    }
+}
\ No newline at end of file
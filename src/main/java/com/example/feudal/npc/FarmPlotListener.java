@@ -0,0 +1,51 @@
+package com.example.feudal.npc;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+
+/** FarmPlots 갱신: 작물 성장(성장 통계 + 농부 깨우기)/부숨/설치, 경작지가 흙으로 바뀜 (결과만 보므로 MONITOR) */
+public class FarmPlotListener implements Listener {
+
+    private final FarmPlots plots;
+
+    public FarmPlotListener(FarmPlots plots) {
+        this.plots = plots;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGrow(BlockGrowEvent e) {
+        Block b = e.getBlock();
+        if (!plots.tracked(b)) return;
+        plots.grew(b, e.getNewState().getType(), e.getNewState().getBlockData(), System.currentTimeMillis());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBreak(BlockBreakEvent e) {
+        Block b = e.getBlock();
+        if (b.getType() == Material.FARMLAND) {
+            plots.soilLost(b);
+            return;
+        }
+        if (plots.tracked(b)) plots.cropChanged(b, Material.AIR, null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent e) {
+        Block b = e.getBlockPlaced();
+        if (!plots.tracked(b)) return;
+        plots.cropChanged(b, b.getType(), b.getBlockData());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFade(BlockFadeEvent e) {
+        Block b = e.getBlock();
+        if (b.getType() == Material.FARMLAND && e.getNewState().getType() != Material.FARMLAND) plots.soilLost(b);
+    }
+}
\ No newline at end of file
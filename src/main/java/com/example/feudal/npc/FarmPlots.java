@@ -0,0 +1,342 @@
+package com.example.feudal.npc;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.GameRule;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.Ageable;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * 농부 NPC 별 밭 인덱스 (메인 스레드 전용).
+ * 농부 주변 (RADIUS) 을 처음 한 번만 훑어서 "경작지 위 작물 칸" 을 기억하고,
+ * 블록 이벤트(FarmPlotListener)와 농부 자신의 수확/파종으로 칸 상태(다 자람/빈 칸)를 갱신한다.
+ * 농사 주기에는 다 자란 칸과 빈 칸만 본다.
+ * 괭이질로 새로 생긴 경작지처럼 이벤트로 안 잡히는 변화는 REBUILD_MS 마다 다시 훑어서 맞춤.
+ * 훑기는 메인 스레드에서 ChunkSnapshot 만 뜨고 블록 판별은 비동기 스레드에서 한다 (끝나면 메인에서 설치).
+ *
+ * 성장 예측: 자라는 칸마다 남은 단계 수를 들고, 청크별로 "한 단계 자라는 데 걸린 시간" 을 BlockGrowEvent 간격으로
+ * 평균 내서 (관측 전엔 randomTickSpeed 로 추정) 다음 수확 가능 시각을 계산한다.
+ * 작물이 다 자라는 이벤트가 오면 그 밭 농부를 바로 깨운다 (onMature).
+ */
+public final class FarmPlots {
+
+    static final int RADIUS = 6;
+    private static final long REBUILD_MS = 5 * 60_000L;
+
+    private static final double STAGE_EWMA = 0.2;      // 청크별 단계 시간 평균 가중치
+    private static final double BEST_GROWTH_CHANCE = 1.0 / 3; // 물 댄 경작지에서 random tick 당 성장 확률 (최대치 근사)
+
+    /** 농부 한 명의 밭. 키는 작물 칸 좌표 (pack) */
+    static final class Plot {
+        final int npcId;
+        final String world;
+        final int cx, cy, cz;
+        final long builtAt;
+        final Set<Long> cells = new HashSet<>();
+        final Set<Long> mature = new HashSet<>();
+        final Set<Long> empty = new HashSet<>();
+        final Set<Long> queued = new HashSet<>(); // 적용 대기열에 들어가 있는 칸
+        final Map<Long, Integer> stagesLeft = new HashMap<>(); // 자라는 중인 칸 -> 다 자랄 때까지 남은 단계
+        final Map<Long, Material> crops = new HashMap<>();      // 작물이 있는 칸 -> 종류 (청크가 내려갈 때 요약용)
+
+        Plot(int npcId, String world, int cx, int cy, int cz, long builtAt) {
+            this.npcId = npcId;
+            this.world = world;
+            this.cx = cx;
+            this.cy = cy;
+            this.cz = cz;
+            this.builtAt = builtAt;
+        }
+    }
+
+    private final JavaPlugin plugin;
+    private final Map<Integer, Plot> plots = new HashMap<>();
+    // 훑는 중인 농부 -> 요청 번호 (그 사이 drop/재요청되면 늦게 온 결과는 버림)
+    private final Map<Integer, Long> scanning = new HashMap<>();
+    private long scanSeq;
+    private final IntConsumer onMature;
+
+    // 성장 통계: 월드 -> 청크 -> 단계당 평균 ms, 칸별 마지막 성장 시각
+    private final Map<String, Map<Long, Double>> stageMs = new HashMap<>();
+    private final Map<String, Map<Long, Long>> lastGrowAt = new HashMap<>();
+
+    /** 청크가 내려갈 때 밭 요약 (작물 종류별 칸 수 + 단계당 평균 시간) */
+    record Summary(Map<Material, Integer> crops, long stageMs) {}
+    // 월드 -> 작물 칸 -> 그 칸을 가진 밭들 (농부끼리 반경이 겹칠 수 있음)
+    private final Map<String, Map<Long, List<Plot>>> byCell = new HashMap<>();
+
+    public FarmPlots(JavaPlugin plugin, IntConsumer onMature) {
+        this.plugin = plugin;
+        this.onMature = onMature;
+    }
+
+    // --------------------
+    // 농부 쪽
+    // --------------------
+
+    /**
+     * 농부가 그 자리에 있는 밭. 처음이거나 자리를 옮겼거나 오래됐으면 비동기로 다시 훑고
+     * 결과가 설치될 때까지는 null (그동안은 예전 밭을 쓰지 않음).
+     */
+    Plot plotFor(int npcId, Location center, long now) {
+        World world = center.getWorld();
+        Plot p = plots.get(npcId);
+        if (p != null && p.world.equals(world.getName())
+                && p.cx == center.getBlockX() && p.cy == center.getBlockY() && p.cz == center.getBlockZ()
+                && now - p.builtAt < REBUILD_MS) {
+            return p;
+        }
+        if (scanning.containsKey(npcId)) return null;
+
+        drop(npcId);
+        int cx = center.getBlockX(), cy = center.getBlockY(), cz = center.getBlockZ();
+        Map<Long, ChunkSnapshot> snaps = snapshots(world, cx, cz);
+        long token = ++scanSeq;
+        scanning.put(npcId, token);
+
+        String worldName = world.getName();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            Plot scanned = scan(npcId, worldName, snaps, cx, cy, cz, now);
+            Bukkit.getScheduler().runTask(plugin, () -> install(scanned, token));
+        });
+        return null;
+    }
+
+    void drop(int npcId) {
+        scanning.remove(npcId);
+        Plot p = plots.remove(npcId);
+        if (p == null) return;
+        Map<Long, List<Plot>> cells = byCell.get(p.world);
+        if (cells == null) return;
+        Map<Long, Long> grows = lastGrowAt.get(p.world);
+        for (long k : p.cells) {
+            List<Plot> owners = cells.get(k);
+            if (owners == null) continue;
+            owners.remove(p);
+            if (owners.isEmpty()) {
+                cells.remove(k);
+                if (grows != null) grows.remove(k);
+            }
+        }
+        if (cells.isEmpty()) byCell.remove(p.world);
+    }
+
+    public int size() {
+        return plots.size();
+    }
+
+    /** 밭 요약. 아직 훑은 적 없거나 작물이 없으면 null */
+    Summary summarize(int npcId) {
+        Plot p = plots.get(npcId);
+        if (p == null || p.crops.isEmpty()) return null;
+
+        Map<Material, Integer> counts = new HashMap<>();
+        for (Material m : p.crops.values()) counts.merge(m, 1, Integer::sum);
+
+        double prior = priorStageMs(Bukkit.getWorld(p.world));
+        Map<Long, Double> chunks = stageMs.getOrDefault(p.world, Map.of());
+        double sum = 0;
+        for (long k : p.crops.keySet()) sum += chunks.getOrDefault(chunkKey(keyX(k) >> 4, keyZ(k) >> 4), prior);
+        return new Summary(counts, Math.round(sum / p.crops.size()));
+    }
+
+    /**
+     * 다음에 수확할 게 생길 것 같은 시각. 자라는 칸이 없으면 Long.MAX_VALUE.
+     * 칸마다 (남은 단계 x 청크의 단계 시간) 중 가장 이른 값. random tick 이라 여러 칸 중 첫 수확은 평균보다 빠르므로
+     * 절반 시점에 깨워서 확인 (늦게 깨는 것보다 한 번 더 보는 게 나음).
+     */
+    long predictMatureAt(Plot p, long now) {
+        if (p.stagesLeft.isEmpty()) return Long.MAX_VALUE;
+        World world = Bukkit.getWorld(p.world);
+        double prior = priorStageMs(world);
+        Map<Long, Double> chunks = stageMs.getOrDefault(p.world, Map.of());
+
+        double best = Double.MAX_VALUE;
+        for (var e : p.stagesLeft.entrySet()) {
+            long k = e.getKey();
+            double per = chunks.getOrDefault(chunkKey(keyX(k) >> 4, keyZ(k) >> 4), prior);
+            best = Math.min(best, e.getValue() * per);
+        }
+        return now + (long) (best / 2);
+    }
+
+    // --------------------
+    // 블록 변화 (리스너 + 농부 자신의 수확/파종)
+    // --------------------
+
+    /** 작물 칸에 새 블록 상태가 들어옴 */
+    void cropChanged(Block crop, Material type, BlockData data) {
+        List<Plot> owners = owners(crop.getWorld().getName(), key(crop.getX(), crop.getY(), crop.getZ()));
+        if (owners == null) return;
+        long k = key(crop.getX(), crop.getY(), crop.getZ());
+        int left = stagesLeft(type, data);
+        boolean isMature = left == 0;
+        boolean isEmpty = type == Material.AIR;
+        for (Plot p : owners) {
+            if (isMature) p.mature.add(k); else p.mature.remove(k);
+            if (isEmpty) p.empty.add(k); else p.empty.remove(k);
+            if (left > 0) p.stagesLeft.put(k, left); else p.stagesLeft.remove(k);
+            if (left >= 0) p.crops.put(k, type); else p.crops.remove(k);
+        }
+    }
+
+    /** BlockGrowEvent: 단계 시간 통계 갱신 후 반영, 다 자랐으면 농부를 깨움 */
+    void grew(Block crop, Material type, BlockData data, long now) {
+        String world = crop.getWorld().getName();
+        long k = key(crop.getX(), crop.getY(), crop.getZ());
+        List<Plot> owners = owners(world, k);
+        if (owners == null) return;
+
+        Long last = lastGrowAt.computeIfAbsent(world, w -> new HashMap<>()).put(k, now);
+        if (last != null && now > last) {
+            stageMs.computeIfAbsent(world, w -> new HashMap<>()).merge(chunkKey(crop.getX() >> 4, crop.getZ() >> 4),
+                    (double) (now - last), (old, obs) -> old + STAGE_EWMA * (obs - old));
+        }
+
+        cropChanged(crop, type, data);
+        if (stagesLeft(type, data) == 0) {
+            lastGrowAt.get(world).remove(k);
+            for (Plot p : List.copyOf(owners)) onMature.accept(p.npcId);
+        }
+    }
+
+    /** 경작지가 사라짐 (부서짐/흙으로 바뀜) -> 그 위 작물 칸은 더 이상 밭이 아님 */
+    void soilLost(Block soil) {
+        String world = soil.getWorld().getName();
+        long k = key(soil.getX(), soil.getY() + 1, soil.getZ());
+        Map<Long, List<Plot>> cells = byCell.get(world);
+        if (cells == null) return;
+        List<Plot> owners = cells.remove(k);
+        if (owners == null) return;
+        for (Plot p : owners) {
+            p.cells.remove(k);
+            p.mature.remove(k);
+            p.empty.remove(k);
+            p.stagesLeft.remove(k);
+            p.crops.remove(k);
+        }
+        Map<Long, Long> grows = lastGrowAt.get(world);
+        if (grows != null) grows.remove(k);
+    }
+
+    boolean tracked(Block b) {
+        return owners(b.getWorld().getName(), key(b.getX(), b.getY(), b.getZ())) != null;
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private void install(Plot p, long token) {
+        Long cur = scanning.get(p.npcId);
+        if (cur == null || cur != token) return; // 훑는 사이에 drop 됨
+        scanning.remove(p.npcId);
+
+        plots.put(p.npcId, p);
+        Map<Long, List<Plot>> cells = byCell.computeIfAbsent(p.world, w -> new HashMap<>());
+        for (long k : p.cells) cells.computeIfAbsent(k, x -> new ArrayList<>(1)).add(p);
+    }
+
+    /** 반경이 걸치는 청크(최대 4개) 중 로드된 것만. 높이맵/바이옴은 안 뜸 */
+    private static Map<Long, ChunkSnapshot> snapshots(World world, int cx, int cz) {
+        Map<Long, ChunkSnapshot> out = new HashMap<>();
+        for (int chx = (cx - RADIUS) >> 4; chx <= (cx + RADIUS) >> 4; chx++) {
+            for (int chz = (cz - RADIUS) >> 4; chz <= (cz + RADIUS) >> 4; chz++) {
+                if (!world.isChunkLoaded(chx, chz)) continue;
+                out.put(chunkKey(chx, chz), world.getChunkAt(chx, chz).getChunkSnapshot(false, false, false));
+            }
+        }
+        return out;
+    }
+
+    private List<Plot> owners(String world, long k) {
+        Map<Long, List<Plot>> cells = byCell.get(world);
+        return cells == null ? null : cells.get(k);
+    }
+
+    /** 비동기 스레드. 예전 doFarmAround 와 같은 규칙: 발 높이가 경작지면 그 위, 발 아래가 경작지면 발 높이가 작물 칸 */
+    private static Plot scan(int npcId, String world, Map<Long, ChunkSnapshot> snaps, int cx, int cy, int cz, long now) {
+        Plot p = new Plot(npcId, world, cx, cy, cz, now);
+        for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+            for (int dz = -RADIUS; dz <= RADIUS; dz++) {
+                int x = cx + dx;
+                int z = cz + dz;
+                ChunkSnapshot snap = snaps.get(chunkKey(x >> 4, z >> 4));
+                if (snap == null) continue;
+
+                int lx = x & 15;
+                int lz = z & 15;
+                int cropY;
+                if (snap.getBlockType(lx, cy, lz) == Material.FARMLAND) cropY = cy + 1;
+                else if (snap.getBlockType(lx, cy - 1, lz) == Material.FARMLAND) cropY = cy;
+                else continue;
+
+                long k = key(x, cropY, z);
+                p.cells.add(k);
+
+                Material t = snap.getBlockType(lx, cropY, lz);
+                if (t == Material.AIR) {
+                    p.empty.add(k);
+                } else if (isCrop(t)) {
+                    int left = stagesLeft(t, snap.getBlockData(lx, cropY, lz));
+                    if (left == 0) p.mature.add(k);
+                    else if (left > 0) p.stagesLeft.put(k, left);
+                    if (left >= 0) p.crops.put(k, t);
+                }
+            }
+        }
+        return p;
+    }
+
+    private static long chunkKey(int chx, int chz) {
+        return ((long) chx << 32) | (chz & 0xffffffffL);
+    }
+
+    /** 작물이면 다 자랄 때까지 남은 단계 (0 = 수확 가능), 작물이 아니면 -1 */
+    private static int stagesLeft(Material type, BlockData data) {
+        if (!isCrop(type) || !(data instanceof Ageable a)) return -1;
+        return Math.max(0, a.getMaximumAge() - a.getAge());
+    }
+
+    /** 관측 전 단계 시간: 섹션(4096칸)당 틱마다 randomTickSpeed 번 -> 한 칸은 4096/speed 틱에 한 번, 그중 1/3 정도 성장 */
+    private static double priorStageMs(World world) {
+        Integer speed = world == null ? null : world.getGameRuleValue(GameRule.RANDOM_TICK_SPEED);
+        int s = speed == null || speed <= 0 ? 3 : speed;
+        return 4096.0 / s / BEST_GROWTH_CHANCE * 50.0;
+    }
+
+    static boolean isCrop(Material m) {
+        return m == Material.WHEAT
+                || m == Material.CARROTS
+                || m == Material.POTATOES
+                || m == Material.BEETROOTS;
+    }
+
+    static long key(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int keyX(long k) {
+        return (int) (k >> 38);
+    }
+
+    static int keyY(long k) {
+        return (int) (k << 52 >> 52);
+    }
+
+    static int keyZ(long k) {
+        return (int) (k << 26 >> 38);
+    }
+}
\ No newline at end of file
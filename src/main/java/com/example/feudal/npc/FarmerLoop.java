@@ -15,99 +15,226 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayDeque;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class FarmerLoop {
+/**
+ * 농부 NPC 농사. 두 단계로 나눠서 돈다.
+ * 1) 찾기: FarmPlots (ChunkSnapshot 을 비동기로 훑은 밭 + 블록 이벤트) 에서 다 자란 칸/빈 칸만 꺼내 대기열에 넣음
+ * 2) 적용: 메인 스레드에서 틱당 farm.apply-per-tick 칸까지만 수확/파종 (농부 수백 명이어도 한 틱에 몰리지 않게)
+ * 할 일이 없으면 다음 수확 예상 시각까지 자고, 밭의 작물이 다 자라면 (BlockGrowEvent) 바로 깬다.
+ * 청크가 내려가면 밭을 요약해 두고 (suspend), 다시 올라오면 경과 시간으로 기대 수확량을 계산해 지급 (resume).
+ */
+public class FarmerLoop implements FeudalNpcScheduler.DueTask {
+
+    /** 칸 하나에 대한 작업. 수확인지 파종인지는 적용 시점 블록을 보고 정함 */
+    private record FarmAction(FarmPlots.Plot plot, long key) {}
+
+    private static final long MAX_IDLE_SLEEP_MS = 10 * 60_000L; // 예측이 빗나가도 이 정도마다는 확인
+
     private final JavaPlugin plugin;
     private final FeudalService feudalService;
-
-    private static final int RADIUS = 6;
+    // 농부별 밭 인덱스 (블록 이벤트로 갱신, FarmPlotListener)
+    private final FarmPlots plots;
+    private final ArrayDeque<FarmAction> actions = new ArrayDeque<>();
+    private final int applyPerTick;
+    private final long offscreenMaxMs;
+    // 이 서버 실행이 시작된 시각. 꺼져 있던 동안은 청크 밖 경과 시간에 넣지 않음
+    private final long startedAtMs = System.currentTimeMillis();
 
     public FarmerLoop(JavaPlugin plugin, FeudalService feudalService) {
         this.plugin = plugin;
         this.feudalService = feudalService;
+        this.plots = new FarmPlots(plugin, this::wake);
+        this.applyPerTick = Math.max(1, plugin.getConfig().getInt("farm.apply-per-tick", 64));
+        this.offscreenMaxMs = Math.max(0L, plugin.getConfig().getLong("farm.offscreen-max-hours", 24L)) * 3_600_000L;
+        NpcRoleIndex.subscribe((npcId, oldRole, newRole) -> {
+            if (oldRole == NPCRole.FARMER && newRole != NPCRole.FARMER) plots.drop(npcId);
+        });
     }
 
+    /** 적용 단계 타이머 (매 틱) */
     public void start() {
-        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            long now = System.currentTimeMillis();
+        Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+    }
+
+    public FarmPlots plots() {
+        return plots;
+    }
+
+    @Override
+    public NPCRole role() {
+        return NPCRole.FARMER;
+    }
+
+    @Override
+    public long nextDueAt(NPC npc, long now) {
+        long next = npc.getTrait(FeudalNPCTrait.class).getNextFarmAtMs();
+        return next <= 0 ? now : next;
+    }
+
+    @Override
+    public void run(NPC npc, long now) {
+        FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
+        if (!npc.isSpawned() || !(npc.getEntity() instanceof Player)) {
+            // 스폰 안 된 동안은 가끔 확인만 (다시 스폰되면 FarmerOffscreenListener 가 깨움)
+            trait.setNextFarmAtMs(now + MAX_IDLE_SLEEP_MS);
+            return;
+        }
+
+        trait.initFarmNextIfNeeded(now);
+        if (now < trait.getNextFarmAtMs()) return;
+
+        // DB 응답 기다리는 동안 다시 잡히지 않게 먼저 예약
+        trait.setNextFarmAtMs(now + trait.getFarmIntervalMs());
+
+        // 농노 NPC만 농사 (DB 조회는 DB 스레드, 농사는 메인 스레드)
+        int npcId = npc.getId();
+        feudalService.executor().whenDone(
+                feudalService.isNpcSerfAsync(npcId),
+                serf -> { if (serf) farm(npcId); },
+                err -> plugin.getLogger().warning("[FarmerLoop] 농노 조회 실패: " + err.getMessage())
+        );
+    }
+
+    private void farm(int npcId) {
+        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+        if (npc == null) {
+            plots.drop(npcId);
+            return;
+        }
+        if (!npc.isSpawned()) return;
 
-            for (NPC npc : CitizensAPI.getNPCRegistry()) {
-                if (!npc.hasTrait(FeudalNPCTrait.class)) continue;
+        Entity ent = npc.getEntity();
+        if (!(ent instanceof Player npcPlayer)) return;
 
-                FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
-                if (trait.getRole() != NPCRole.FARMER) continue;
+        Location center = npcPlayer.getLocation();
+        if (center.getWorld() == null) return;
 
-                if (!npc.isSpawned() || npc.getEntity() == null) continue;
+        // 밭을 (다시) 훑는 중이면 이번 주기는 건너뜀
+        FarmPlots.Plot plot = plots.plotFor(npcId, center, System.currentTimeMillis());
+        if (plot == null) return;
 
-                // 농노 NPC만 농사
-                try {
-                    if (!feudalService.isNpcSerf(npc.getId())) continue;
-                } catch (Exception ignored) {
-                    continue;
-                }
+        // (A) 성숙 작물 수확, (B) 빈 칸 파종 -> 적용 대기열로
+        for (long k : plot.mature) enqueue(plot, k);
+        boolean plantable = !plot.empty.isEmpty() && npcPlayer.getInventory().contains(Material.WHEAT_SEEDS);
+        if (plantable) for (long k : plot.empty) enqueue(plot, k);
 
-                Entity ent = npc.getEntity();
-                if (!(ent instanceof Player npcPlayer)) continue;
-                Inventory inv = npcPlayer.getInventory();
+        // 당장 할 일이 없으면 다음 수확 예상 시각까지 잠 (다 자라는 이벤트가 오면 wake 로 일찍 깸)
+        if (plot.mature.isEmpty() && !plantable) {
+            FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
+            long now = System.currentTimeMillis();
+            long at = Math.min(plots.predictMatureAt(plot, now), now + MAX_IDLE_SLEEP_MS);
+            trait.setNextFarmAtMs(Math.max(now + trait.getFarmIntervalMs(), at));
+        }
+    }
 
-                trait.initFarmNextIfNeeded(now);
-                if (now < trait.getNextFarmAtMs()) continue;
+    /** 자고 있는 농부만 깨움 (평소 주기로 돌고 있으면 그대로) */
+    private void wake(int npcId) {
+        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+        if (npc == null || !npc.hasTrait(FeudalNPCTrait.class)) return;
 
-                try {
-                    doFarmAround(npcPlayer, inv, npcPlayer.getLocation());
-                } catch (Exception e) {
-                    plugin.getLogger().warning("[FarmerLoop] 처리 실패: " + e.getMessage());
-                }
+        FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
+        long now = System.currentTimeMillis();
+        if (trait.getNextFarmAtMs() > now + trait.getFarmIntervalMs()) trait.setNextFarmAtMs(now);
+    }
+
+    private void enqueue(FarmPlots.Plot plot, long key) {
+        if (plot.queued.add(key)) actions.add(new FarmAction(plot, key));
+    }
 
-                trait.setNextFarmAtMs(now + trait.getFarmIntervalMs());
+    // --------------------
+    // 청크 밖 (FarmerOffscreenListener)
+    // --------------------
+
+    /** 청크가 내려가며 디스폰됨: 밭 요약을 트레잇에 남기고 다시 스폰될 때까지 거의 안 깨어남 */
+    void suspend(NPC npc) {
+        FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
+        FarmPlots.Summary sum = plots.summarize(npc.getId());
+        plots.drop(npc.getId());
+
+        long now = System.currentTimeMillis();
+        if (sum != null && feudalService.npcMember(npc.getId()).map(FeudalService.NpcMember::serf).orElse(false)) {
+            StringBuilder sb = new StringBuilder();
+            sum.crops().forEach((m, n) -> sb.append(sb.isEmpty() ? "" : ",").append(m.name()).append(':').append(n));
+            trait.setOffscreen(now, sb.toString(), sum.stageMs());
+        }
+        trait.setNextFarmAtMs(now + MAX_IDLE_SLEEP_MS);
+    }
+
+    /** 다시 스폰됨: 요약이 있으면 경과 시간만큼 수확한 셈 치고 지급, 바로 한 번 돌게 함 */
+    void resume(NPC npc) {
+        FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
+        long now = System.currentTimeMillis();
+        Long since = trait.getOffscreenSinceMs();
+        String crops = trait.getOffscreenCrops();
+        long stageMs = trait.getOffscreenStageMs();
+        trait.clearOffscreen();
+        trait.setNextFarmAtMs(now);
+
+        if (since == null || crops == null || stageMs <= 0) return;
+        if (!(npc.getEntity() instanceof Player farmer)) return;
+        // 내려가 있는 동안 농노가 풀렸으면 지급 없음 (suspend 와 같은 조건)
+        if (!feudalService.npcMember(npc.getId()).map(FeudalService.NpcMember::serf).orElse(false)) return;
+
+        // 재시작 전에 남긴 요약이면 이번 실행 시작부터만 (서버가 꺼져 있던 시간은 공짜 수확 아님)
+        long elapsed = Math.min(now - Math.max(since, startedAtMs), offscreenMaxMs);
+        if (elapsed <= 0) return;
+
+        for (String part : crops.split(",")) {
+            int i = part.indexOf(':');
+            if (i <= 0) continue;
+            Material crop;
+            int cells;
+            try {
+                crop = Material.valueOf(part.substring(0, i));
+                cells = Integer.parseInt(part.substring(i + 1));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            // 칸마다 (최대 나이 x 단계 시간) 에 한 번 수확 -> 기대 수확 횟수
+            long harvests = (long) cells * elapsed / (stagesOf(crop) * stageMs);
+            if (harvests > 0) giveOffscreenYield(farmer, farmer.getInventory(), crop, harvests);
+        }
+    }
+
+    // --------------------
+    // 적용 (메인 스레드, 틱당 applyPerTick 칸)
+    // --------------------
+    private void drain() {
+        for (int n = 0; n < applyPerTick && !actions.isEmpty(); n++) {
+            FarmAction a = actions.poll();
+            a.plot().queued.remove(a.key());
+            try {
+                apply(a.plot(), a.key());
+            } catch (Exception e) {
+                plugin.getLogger().warning("[FarmerLoop] 처리 실패: " + e.getMessage());
             }
-        }, 20L, 20L); // 1초마다 체크
-    }
-
-    private void doFarmAround(Player farmer, Inventory inv, Location center) {
-        World world = center.getWorld();
-        if (world == null) return;
-
-        int cx = center.getBlockX();
-        int cy = center.getBlockY();
-        int cz = center.getBlockZ();
-
-        for (int dx = -RADIUS; dx <= RADIUS; dx++) {
-            for (int dz = -RADIUS; dz <= RADIUS; dz++) {
-
-                Block base = world.getBlockAt(cx + dx, cy, cz + dz);
-
-                Block soil;
-                Block crop;
-
-                if (base.getType() == Material.FARMLAND) {
-                    soil = base;
-                    crop = base.getRelative(0, 1, 0);
-                } else if (base.getRelative(0, -1, 0).getType() == Material.FARMLAND) {
-                    soil = base.getRelative(0, -1, 0);
-                    crop = base;
-                } else {
-                    continue;
-                }
-
-                // (A) 성숙 작물 수확
-                if (isCrop(crop.getType())) {
-                    var data = crop.getBlockData();
-                    if (data instanceof Ageable ageable) {
-                        if (ageable.getAge() >= ageable.getMaximumAge()) {
-                            harvestAndMaybeReplant(farmer, inv, crop);
-                        }
-                    }
-                    continue;
-                }
-
-                if (crop.getType() == Material.AIR) {
-                    tryPlant(farmer, inv, crop, Material.WHEAT);
-                }
+        }
+    }
+
+    private void apply(FarmPlots.Plot plot, long key) {
+        NPC npc = CitizensAPI.getNPCRegistry().getById(plot.npcId);
+        if (npc == null || !npc.isSpawned()) return;
+        if (!(npc.getEntity() instanceof Player farmer)) return;
+
+        World world = Bukkit.getWorld(plot.world);
+        int x = FarmPlots.keyX(key), y = FarmPlots.keyY(key), z = FarmPlots.keyZ(key);
+        if (world == null || !world.isChunkLoaded(x >> 4, z >> 4)) return; // 청크를 새로 로드하지 않음
+
+        // 스냅샷 이후 바뀌었을 수 있어서 블록은 한 번 확인
+        Block crop = world.getBlockAt(x, y, z);
+        Inventory inv = farmer.getInventory();
+        Material t = crop.getType();
+        if (FarmPlots.isCrop(t)) {
+            if (crop.getBlockData() instanceof Ageable ageable && ageable.getAge() >= ageable.getMaximumAge()) {
+                harvestAndMaybeReplant(farmer, inv, crop);
             }
+        } else if (t == Material.AIR && crop.getRelative(0, -1, 0).getType() == Material.FARMLAND) {
+            tryPlant(farmer, inv, crop, Material.WHEAT);
         }
+        plots.cropChanged(crop, crop.getType(), crop.getBlockData());
     }
 
     private void harvestAndMaybeReplant(Player farmer, Inventory inv, Block crop) {
@@ -163,6 +290,46 @@ public class FarmerLoop {
         }
     }
 
+    /**
+     * giveHarvestToNpc 의 기대값에서 재파종에 쓴 씨앗 하나를 뺀 순수확 (밀/비트 씨앗은 0).
+     * 인벤토리 빈 자리만큼만 넣고 나머지는 버림 (청크 로드 틱에 아이템 엔티티를 뿌리지 않게).
+     */
+    private void giveOffscreenYield(Player farmer, Inventory inv, Material cropType, long harvests) {
+        switch (cropType) {
+            case WHEAT -> addUpToRoom(inv, Material.WHEAT, harvests);
+            case CARROTS -> addUpToRoom(inv, Material.CARROT, harvests);           // 평균 2 - 재파종 1
+            case POTATOES -> {
+                addUpToRoom(inv, Material.POTATO, harvests);
+                addUpToRoom(inv, Material.POISONOUS_POTATO, harvests / 20);
+            }
+            case BEETROOTS -> addUpToRoom(inv, Material.BEETROOT, harvests);
+            default -> {}
+        }
+    }
+
+    private static int stagesOf(Material cropType) {
+        return cropType == Material.BEETROOTS ? 3 : 7;
+    }
+
+    /** 들어갈 자리(빈 칸 + 같은 아이템 묶음의 남은 칸)만큼만 넣음 */
+    private void addUpToRoom(Inventory inv, Material mat, long amount) {
+        if (amount <= 0) return;
+
+        ItemStack probe = new ItemStack(mat);
+        int max = mat.getMaxStackSize();
+        long room = 0;
+        for (ItemStack it : inv.getStorageContents()) {
+            if (it == null || it.getType() == Material.AIR) room += max;
+            else if (it.isSimilar(probe)) room += Math.max(0, max - it.getAmount());
+        }
+
+        for (long left = Math.min(amount, room); left > 0; ) {
+            int n = (int) Math.min(left, max);
+            inv.addItem(new ItemStack(mat, n));
+            left -= n;
+        }
+    }
+
     private void addOrDrop(Player farmer, Inventory inv, ItemStack item) {
         if (item == null || item.getAmount() <= 0) return;
         Map<Integer, ItemStack> leftover = inv.addItem(item);
@@ -171,15 +338,18 @@ public class FarmerLoop {
         }
     }
 
+    /** 한 개만 빼므로 전체 복사 없이 첫 칸 하나만 고침 (칸마다 불리는 경로) */
     private boolean consumeOne(Inventory inv, Material mat) {
-        for (int i = 0; i < inv.getSize(); i++) {
-            ItemStack it = inv.getItem(i);
-            if (it == null || it.getType() != mat) continue;
-            if (it.getAmount() <= 1) inv.setItem(i, null);
-            else it.setAmount(it.getAmount() - 1);
-            return true;
+        int slot = inv.first(mat);
+        if (slot < 0) return false;
+
+        ItemStack it = inv.getItem(slot);
+        if (it.getAmount() <= 1) inv.setItem(slot, null);
+        else {
+            it.setAmount(it.getAmount() - 1);
+            inv.setItem(slot, it);
         }
-        return false;
+        return true;
     }
 
     private Material seedOf(Material crop) {
@@ -191,11 +361,4 @@ public class FarmerLoop {
             default -> null;
         };
     }
-
-    private boolean isCrop(Material m) {
-        return m == Material.WHEAT
-                || m == Material.CARROTS
-                || m == Material.POTATOES
-                || m == Material.BEETROOTS;
-    }
 }
\ No newline at end of file
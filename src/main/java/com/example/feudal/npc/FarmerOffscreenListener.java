@@ -0,0 +1,43 @@
+package com.example.feudal.npc;
+
+import net.citizensnpcs.api.event.DespawnReason;
+import net.citizensnpcs.api.event.NPCDespawnEvent;
+import net.citizensnpcs.api.event.NPCSpawnEvent;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/** 농부 NPC 가 청크와 함께 내려가면 밭 요약, 다시 스폰되면 그동안의 수확량 정산 (FarmerLoop.suspend/resume) */
+public class FarmerOffscreenListener implements Listener {
+
+    private final JavaPlugin plugin;
+    private final FarmerLoop farmers;
+
+    public FarmerOffscreenListener(JavaPlugin plugin, FarmerLoop farmers) {
+        this.plugin = plugin;
+        this.farmers = farmers;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDespawn(NPCDespawnEvent e) {
+        if (e.getReason() != DespawnReason.CHUNK_UNLOAD || !isFarmer(e.getNPC())) return;
+        farmers.suspend(e.getNPC());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSpawn(NPCSpawnEvent e) {
+        NPC npc = e.getNPC();
+        if (!isFarmer(npc)) return;
+        // 엔티티(인벤토리)가 다 붙은 다음 틱에 정산
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (npc.isSpawned()) farmers.resume(npc);
+        });
+    }
+
+    private static boolean isFarmer(NPC npc) {
+        return npc.hasTrait(FeudalNPCTrait.class) && npc.getTrait(FeudalNPCTrait.class).getRole() == NPCRole.FARMER;
+    }
+}
\ No newline at end of file
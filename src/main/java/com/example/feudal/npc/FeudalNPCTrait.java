@@ -2,6 +2,9 @@ package com.example.feudal.npc;
 
 import net.citizensnpcs.api.persistence.Persist;
 import net.citizensnpcs.api.trait.Trait;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
 
 public class FeudalNPCTrait extends Trait {
 
@@ -16,14 +19,41 @@ public class FeudalNPCTrait extends Trait {
     // FARM
     @Persist private Long farmIntervalMs = 5_000L; // 5초
     @Persist private Long nextFarmAtMs = 0L;
+    // 청크가 내려가 있는 동안의 밭 요약 (다시 올라오면 경과 시간만큼 수확량 정산)
+    @Persist private Long offscreenSinceMs;
+    @Persist private String offscreenCrops;   // "WHEAT:12,CARROTS:4"
+    @Persist private Long offscreenStageMs;
+
+    // GUARD (한가할 때 돌아갈 초소)
+    @Persist private String homeWorld;
+    @Persist private Integer homeX;
+    @Persist private Integer homeY;
+    @Persist private Integer homeZ;
 
     public FeudalNPCTrait() {
         super("feudal");
     }
 
+    // -------- 역할 인덱스 --------
+    @Override
+    public void onAttach() {
+        NpcRoleIndex.put(npc.getId(), getRole());
+    }
+
+    @Override
+    public void onRemove() {
+        NpcRoleIndex.remove(npc.getId());
+    }
+
+    /** 주기/다음 시각이 바뀌면 스케줄러가 다시 예약하도록 */
+    private void touch() {
+        if (npc != null) NpcRoleIndex.touch(npc.getId());
+    }
+
     // -------- Role --------
     public void setRole(NPCRole role) {
         this.role = (role == null ? null : role.name());
+        if (npc != null) NpcRoleIndex.put(npc.getId(), role);
     }
 
     public NPCRole getRole() {
@@ -34,17 +64,17 @@ public class FeudalNPCTrait extends Trait {
 
     // -------- Family --------
     public Integer getFamilyId() { return familyId; }
-    public void setFamilyId(Integer familyId) { this.familyId = familyId; }
+    public void setFamilyId(Integer familyId) { this.familyId = familyId; touch(); }
 
     // -------- TAX --------
     public int getTaxAmount() { return taxAmount == null ? 0 : taxAmount; }
-    public void setTaxAmount(int taxAmount) { this.taxAmount = taxAmount; }
+    public void setTaxAmount(int taxAmount) { this.taxAmount = taxAmount; touch(); }
 
     public long getIntervalMs() { return intervalMs == null ? 300_000L : intervalMs; }
-    public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+    public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; touch(); }
 
     public long getNextCollectAtMs() { return nextCollectAtMs == null ? 0L : nextCollectAtMs; }
-    public void setNextCollectAtMs(long nextCollectAtMs) { this.nextCollectAtMs = nextCollectAtMs; }
+    public void setNextCollectAtMs(long nextCollectAtMs) { this.nextCollectAtMs = nextCollectAtMs; touch(); }
 
     public void initNextIfNeeded(long nowMs) {
         if (getNextCollectAtMs() <= 0L) setNextCollectAtMs(nowMs + getIntervalMs());
@@ -52,12 +82,48 @@ public class FeudalNPCTrait extends Trait {
 
     // -------- FARM --------
     public long getFarmIntervalMs() { return farmIntervalMs == null ? 5_000L : farmIntervalMs; }
-    public void setFarmIntervalMs(long ms) { this.farmIntervalMs = ms; }
+    public void setFarmIntervalMs(long ms) { this.farmIntervalMs = ms; touch(); }
 
     public long getNextFarmAtMs() { return nextFarmAtMs == null ? 0L : nextFarmAtMs; }
-    public void setNextFarmAtMs(long ms) { this.nextFarmAtMs = ms; }
+    public void setNextFarmAtMs(long ms) { this.nextFarmAtMs = ms; touch(); }
 
     public void initFarmNextIfNeeded(long nowMs) {
         if (getNextFarmAtMs() <= 0L) setNextFarmAtMs(nowMs);
     }
+
+    public Long getOffscreenSinceMs() { return offscreenSinceMs; }
+    public String getOffscreenCrops() { return offscreenCrops; }
+    public long getOffscreenStageMs() { return offscreenStageMs == null ? 0L : offscreenStageMs; }
+
+    public void setOffscreen(long sinceMs, String crops, long stageMs) {
+        this.offscreenSinceMs = sinceMs;
+        this.offscreenCrops = crops;
+        this.offscreenStageMs = stageMs;
+    }
+
+    public void clearOffscreen() {
+        this.offscreenSinceMs = null;
+        this.offscreenCrops = null;
+        this.offscreenStageMs = null;
+    }
+
+    // -------- GUARD --------
+    /** 초소 (블록 중앙), 없거나 월드가 안 불러져 있으면 null */
+    public Location getHome() {
+        if (homeWorld == null || homeX == null || homeY == null || homeZ == null) return null;
+        World w = Bukkit.getWorld(homeWorld);
+        return w == null ? null : new Location(w, homeX + 0.5, homeY, homeZ + 0.5);
+    }
+
+    public void setHome(Location loc) {
+        if (loc == null || loc.getWorld() == null) {
+            homeWorld = null;
+            homeX = homeY = homeZ = null;
+            return;
+        }
+        homeWorld = loc.getWorld().getName();
+        homeX = loc.getBlockX();
+        homeY = loc.getBlockY();
+        homeZ = loc.getBlockZ();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.example.feudal.npc;
+
+import com.example.feudal.util.TimingWheel;
+import net.citizensnpcs.api.CitizensAPI;
+import net.citizensnpcs.api.npc.NPC;
+import net.citizensnpcs.api.npc.NPCRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * feudal NPC 통합 스케줄러.
+ * 타이머 하나로 매 틱 돌면서
+ * - RoleTask: 주기가 된 작업에게 그 역할 NPC 만 (NpcRoleIndex) 넘겨준다.
+ *   작업끼리는 등록 순서대로 틱을 어긋나게 해서 같은 틱에 몰리지 않게 함.
+ * - DueTask: NPC 마다 다음 실행 시각을 타이밍 휠에 걸어두고, 시각이 된 NPC 만 실행 후 다시 건다.
+ *   역할 변경/트레잇 설정 변경은 NpcRoleIndex 알림으로 다시 예약.
+ */
+public class FeudalNpcScheduler implements NpcRoleIndex.ChangeListener {
+
+    /** 역할별 주기 작업 (메인 스레드에서 호출) */
+    public interface RoleTask {
+        NPCRole role();
+
+        /** 실행 주기 (틱) */
+        int periodTicks();
+
+        void tick(List<NPC> npcs, long nowMs);
+    }
+
+    /** NPC 별 만기 작업 (메인 스레드에서 호출) */
+    public interface DueTask {
+        NPCRole role();
+
+        /** 다음 실행 시각 (ms). 지금 대상이 아니면 -1 (설정이 바뀌면 다시 물어봄) */
+        long nextDueAt(NPC npc, long nowMs);
+
+        void run(NPC npc, long nowMs);
+    }
+
+    private record Entry(RoleTask task, int period, int offset) {}
+
+    private record Due(DueTask task, TimingWheel wheel) {}
+
+    private static final long WHEEL_TICK_MS = 250L;
+    private static final int WHEEL_SLOTS = 2048; // 한 바퀴 약 8.5분
+
+    private final JavaPlugin plugin;
+    private final List<Entry> tasks = new ArrayList<>();
+    private final List<Due> dueTasks = new ArrayList<>();
+    private long ticks;
+
+    public FeudalNpcScheduler(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public FeudalNpcScheduler register(RoleTask task) {
+        int period = Math.max(1, task.periodTicks());
+        tasks.add(new Entry(task, period, tasks.size() % period));
+        return this;
+    }
+
+    public FeudalNpcScheduler register(DueTask task) {
+        dueTasks.add(new Due(task, new TimingWheel(WHEEL_TICK_MS, WHEEL_SLOTS)));
+        return this;
+    }
+
+    public void start() {
+        // 이미 인덱스에 있는 NPC 들 예약
+        long now = System.currentTimeMillis();
+        for (Due d : dueTasks) {
+            for (int id : NpcRoleIndex.ids(d.task().role())) arm(d, id, now);
+        }
+        NpcRoleIndex.subscribe(this);
+        Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 20L, 1L);
+    }
+
+    /** 예약돼 있는 만기 작업 수 */
+    public int scheduled() {
+        int n = 0;
+        for (Due d : dueTasks) n += d.wheel().size();
+        return n;
+    }
+
+    @Override
+    public void changed(int npcId, NPCRole oldRole, NPCRole newRole) {
+        long now = System.currentTimeMillis();
+        for (Due d : dueTasks) {
+            NPCRole role = d.task().role();
+            if (newRole == role) arm(d, npcId, now);
+            else if (oldRole == role) d.wheel().cancel(npcId);
+        }
+    }
+
+    private void arm(Due d, int npcId, long now) {
+        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+        long at = npc == null ? -1 : d.task().nextDueAt(npc, now);
+        if (at < 0) d.wheel().cancel(npcId);
+        else d.wheel().schedule(npcId, at);
+    }
+
+    private void tick() {
+        ticks++;
+        long now = System.currentTimeMillis();
+        NPCRegistry registry = CitizensAPI.getNPCRegistry();
+
+        for (Due d : dueTasks) {
+            d.wheel().advance(now, id -> {
+                NPC npc = registry.getById(id);
+                if (npc == null) {
+                    NpcRoleIndex.remove(id);
+                    return;
+                }
+                try {
+                    d.task().run(npc, now);
+                } catch (Exception ex) {
+                    plugin.getLogger().warning("[NpcScheduler] " + d.task().role() + " #" + id + " 처리 실패: " + ex.getMessage());
+                }
+                if (!d.wheel().isScheduled(id)) arm(d, id, now); // run 안에서 다시 안 걸었으면 여기서
+            });
+        }
+
+        for (Entry e : tasks) {
+            if ((ticks + e.offset()) % e.period() != 0) continue;
+
+            Set<Integer> ids = NpcRoleIndex.ids(e.task().role());
+            if (ids.isEmpty()) continue;
+
+            List<NPC> npcs = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                NPC npc = registry.getById(id);
+                if (npc == null) {
+                    NpcRoleIndex.remove(id); // 트레잇 콜백 없이 사라진 NPC
+                    continue;
+                }
+                npcs.add(npc);
+            }
+
+            try {
+                e.task().tick(npcs, now);
+            } catch (Exception ex) {
+                plugin.getLogger().warning("[NpcScheduler] " + e.task().role() + " 처리 실패: " + ex.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -1,9 +1,10 @@
 package com.example.feudal.npc;
 
 import com.example.feudal.service.FeudalService;
+import com.example.feudal.util.IntCooldowns;
+import com.example.feudal.util.UuidCooldowns;
 import net.citizensnpcs.api.CitizensAPI;
 import net.citizensnpcs.api.npc.NPC;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.attribute.Attribute;
@@ -14,15 +15,26 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.util.Vector;
 
-import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
-public class GuardLoop {
+/**
+ * 가드 AI. 매 틱 돌지만 가드를 buckets 묶음(npcId % buckets)으로 나눠 틱마다 한 묶음만 대기열에 넣고,
+ * 틱당 시간 예산(tick-budget-ns) 안에서만 처리한다. 예산을 넘기면 남은 가드는 다음 틱으로 이월.
+ */
+public class GuardLoop implements FeudalNpcScheduler.RoleTask {
+
+    /** 가드 처리 통계 (틱 단위) */
+    public record Stats(int lastProcessed, double avgProcessed, double lastMs, double avgMs, double maxMs,
+                        int pending, long deferredTicks, long deferredGuards, long navIssued, long navSkipped) {}
 
     private final JavaPlugin plugin;
     private final FeudalService feudalService;
+    private final int buckets;
+    private final long budgetNs;
 
     // ---- 튜닝 값 ----
     private static final double AGGRO_RADIUS = 14.0;       // 탐지 반경
@@ -38,103 +50,185 @@ public class GuardLoop {
     private static final long WARN_COOLDOWN_MS = 10_000;   // 같은 플레이어에게 경고 재발동 최소 간격
     private static final long WARN_GRACE_MS = 3_000;       // 경고 후 공격까지 유예 시간
 
-    private final Map<Integer, Long> lastAttackAt = new HashMap<>();
-    private final Map<Integer, Long> lastRangedAt = new HashMap<>();
-    private final Map<UUID, Long> lastWarnAt = new HashMap<>();
-    private final Map<UUID, Long> warnedUntil = new HashMap<>();
+    private static final int SWEEP_EVERY_TICKS = 200;       // 만료된 쿨타임 정리 주기
+
+    // 쿨타임이 지나면 sweep 으로 빠짐 (스쳐간 플레이어/지워진 가드가 계속 쌓이지 않게)
+    private final IntCooldowns lastAttackAt = new IntCooldowns(ATTACK_COOLDOWN_MS);
+    private final IntCooldowns lastRangedAt = new IntCooldowns(RANGED_COOLDOWN_MS);
+    private final UuidCooldowns lastWarnAt = new UuidCooldowns(WARN_COOLDOWN_MS);
+    private final UuidCooldowns warnedUntil = new UuidCooldowns(0L); // 값이 마감 시각
+
+    // 틱마다 다시 만드는 영지별 침입자 목록
+    private final IntruderBoard board;
+    // 가드별 마지막 길찾기 목표 (같은 목표면 다시 안 보냄)
+    private final GuardNavigator navigator = new GuardNavigator();
+
+    // 이번 틱 이후로 밀린 가드 (같은 가드는 한 번만)
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+    private final Set<Integer> queued = new HashSet<>();
+    private long tickNo;
+
+    // ---- 통계 (메인 스레드에서만 쓰고, /f stats 는 비동기에서 읽음) ----
+    private volatile int lastProcessed;
+    private volatile int pendingNow;
+    private volatile long lastNanos;
+    private volatile long maxNanos;
+    private volatile long busyTicks;
+    private volatile long processedSum;
+    private volatile long nanosSum;
+    private volatile long deferredTicks;
+    private volatile long deferredGuards;
 
     public GuardLoop(JavaPlugin plugin, FeudalService feudalService) {
         this.plugin = plugin;
         this.feudalService = feudalService;
+        this.board = new IntruderBoard(feudalService.members());
+        this.buckets = Math.max(1, plugin.getConfig().getInt("guard.buckets", 10));
+        this.budgetNs = Math.max(100_000L, plugin.getConfig().getLong("guard.tick-budget-ns", 2_000_000L));
     }
 
-    public void start() {
-        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            long now = System.currentTimeMillis();
+    @Override
+    public NPCRole role() {
+        return NPCRole.GUARD;
+    }
 
-            for (NPC npc : CitizensAPI.getNPCRegistry()) {
-                if (!npc.hasTrait(FeudalNPCTrait.class)) continue;
+    @Override
+    public int periodTicks() {
+        return 1; // 가드 한 명 기준 주기는 buckets 틱
+    }
 
-                FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
-                if (trait.getRole() != NPCRole.GUARD) continue;
+    @Override
+    public void tick(List<NPC> npcs, long now) {
+        if (tickNo % SWEEP_EVERY_TICKS == 0) sweep(now);
+        int bucket = (int) (tickNo++ % buckets);
+        for (NPC npc : npcs) {
+            int id = npc.getId();
+            if (Math.floorMod(id, buckets) == bucket && queued.add(id)) pending.add(id);
+        }
+        if (pending.isEmpty()) return;
+
+        board.reset();
+        long start = System.nanoTime();
+        long deadline = start + budgetNs;
+        int done = 0;
+
+        // 가문/영지/구성원은 모두 메모리 캐시에서 (루프 안에서 DB 안 감)
+        // 예산을 넘겨도 최소 한 명은 처리 (밀리기만 하지 않게)
+        while (!pending.isEmpty() && (done == 0 || System.nanoTime() < deadline)) {
+            int id = pending.poll();
+            queued.remove(id);
+            done++;
+
+            NPC npc = CitizensAPI.getNPCRegistry().getById(id);
+            if (npc == null) {
+                navigator.forget(id);
+                continue;
+            }
+            if (!npc.isSpawned() || npc.getEntity() == null) continue;
+            if (!(npc.getEntity() instanceof LivingEntity guard)) continue;
+            act(npc, guard, now);
+        }
 
-                if (!npc.isSpawned() || npc.getEntity() == null) continue;
-                if (!(npc.getEntity() instanceof LivingEntity guard)) continue;
+        record(done, System.nanoTime() - start);
+    }
 
-                // 1) 가드가 속한 가문 확인
-                Integer guardFamilyId;
-                try {
-                    var fidOpt = feudalService.getNpcFamilyId(npc.getId());
-                    if (fidOpt.isEmpty()) continue;
-                    guardFamilyId = fidOpt.get();
-                } catch (SQLException e) {
-                    continue;
-                }
+    public Stats stats() {
+        long n = busyTicks;
+        return new Stats(lastProcessed,
+                n == 0 ? 0 : (double) processedSum / n,
+                lastNanos / 1_000_000.0,
+                n == 0 ? 0 : nanosSum / 1_000_000.0 / n,
+                maxNanos / 1_000_000.0,
+                pendingNow, deferredTicks, deferredGuards, navigator.issued(), navigator.skipped());
+    }
 
-                // 2) 가문 영지 확인 (활성 + 가드가 영지 안에 있을 때만 작동)
-                FeudalService.FamilyLand land;
-                try {
-                    var landOpt = feudalService.getFamilyLand(guardFamilyId);
-                    if (landOpt.isEmpty()) continue;
-                    land = landOpt.get();
-                    if (!land.enabled()) continue;
-                } catch (SQLException e) {
-                    continue;
-                }
+    private void sweep(long now) {
+        lastAttackAt.sweep(now);
+        lastRangedAt.sweep(now);
+        lastWarnAt.sweep(now);
+        warnedUntil.sweep(now);
+    }
 
-                Location gl = guard.getLocation();
-                if (!isInside(gl, land)) continue;
-
-                // 3) 침입자(다른 가문 플레이어) 찾기
-                Player target = findNearestEnemy(gl, land, guardFamilyId);
-                if (target == null) continue;
-
-                // 4) 추적
-                try {
-                    npc.getNavigator().setTarget(target, true);
-                } catch (Throwable ignored) {}
-
-                // 5) 경고/유예
-                UUID tuid = target.getUniqueId();
-                long until = warnedUntil.getOrDefault(tuid, 0L);
-                if (now < until) continue;
-
-                // 경고를 먼저 주고 유예 시작 (10초에 한 번만 경고)
-                long lastW = lastWarnAt.getOrDefault(tuid, 0L);
-                if (now - lastW >= WARN_COOLDOWN_MS) {
-                    lastWarnAt.put(tuid, now);
-                    warnedUntil.put(tuid, now + WARN_GRACE_MS);
-                    target.sendMessage("§c[경고] §f여기는 영지입니다. 즉시 떠나세요! §7(3초 후 공격)");
-                    continue;
-                }
+    private void record(int done, long took) {
+        lastProcessed = done;
+        lastNanos = took;
+        if (took > maxNanos) maxNanos = took;
+        busyTicks++;
+        processedSum += done;
+        nanosSum += took;
+        pendingNow = pending.size();
+        if (!pending.isEmpty()) {
+            deferredTicks++;
+            deferredGuards += pending.size();
+        }
+    }
 
-                // 거리 계산
-                double distSq = gl.distanceSquared(target.getLocation());
-
-                // 6) 무기 기반 공격
-                ItemStack weapon = getMainHand(guard);
-                boolean ranged = isRangedWeapon(weapon);
-
-                if (ranged) {
-                    if (distSq <= (RANGED_MAX_DISTANCE * RANGED_MAX_DISTANCE)) {
-                        long last = lastRangedAt.getOrDefault(npc.getId(), 0L);
-                        if (now - last >= RANGED_COOLDOWN_MS) {
-                            doRangedAttack(guard, target);
-                            lastRangedAt.put(npc.getId(), now);
-                        }
-                    }
-                } else {
-                    if (distSq <= (MELEE_RANGE * MELEE_RANGE)) {
-                        long last = lastAttackAt.getOrDefault(npc.getId(), 0L);
-                        if (now - last >= ATTACK_COOLDOWN_MS) {
-                            double dmg = calculateMeleeDamage(guard, weapon);
-                            target.damage(dmg, guard);
-                            lastAttackAt.put(npc.getId(), now);
-                        }
-                    }
+    private void act(NPC npc, LivingEntity guard, long now) {
+        // 1) 가드가 속한 가문 확인
+        Integer guardFamilyId = feudalService.npcMember(npc.getId())
+                .map(FeudalService.NpcMember::familyId).orElse(null);
+        if (guardFamilyId == null) return;
+
+        // 2) 가문 영지 확인 (활성 + 가드가 영지 안에 있을 때만 작동)
+        FeudalService.FamilyLand land = feudalService.lands().get(guardFamilyId).orElse(null);
+        if (land == null || !land.enabled()) return;
+
+        // 영지 밖으로 끌려나갔으면 초소로 복귀
+        Location gl = guard.getLocation();
+        if (!isInside(gl, land)) {
+            navigator.idle(npc, npc.getTrait(FeudalNPCTrait.class), gl, land, false, now);
+            return;
+        }
+
+        // 3) 침입자(다른 가문 플레이어) 중 가장 가까운 대상, 없으면 초소로
+        Player target = findNearestEnemy(gl, board.intruders(land));
+        if (target == null) {
+            navigator.idle(npc, npc.getTrait(FeudalNPCTrait.class), gl, land, true, now);
+            return;
+        }
+
+        // 4) 추적 (대상이 바뀌었거나 많이 움직였을 때만 길찾기)
+        navigator.chase(npc, target, now);
+
+        // 5) 경고/유예
+        UUID tuid = target.getUniqueId();
+        long until = warnedUntil.get(tuid, 0L);
+        if (now < until) return;
+
+        // 경고를 먼저 주고 유예 시작 (10초에 한 번만 경고)
+        long lastW = lastWarnAt.get(tuid, 0L);
+        if (now - lastW >= WARN_COOLDOWN_MS) {
+            lastWarnAt.put(tuid, now);
+            warnedUntil.put(tuid, now + WARN_GRACE_MS);
+            target.sendMessage("§c[경고] §f여기는 영지입니다. 즉시 떠나세요! §7(3초 후 공격)");
+            return;
+        }
+
+        // 거리 계산
+        double distSq = gl.distanceSquared(target.getLocation());
+
+        // 6) 무기 기반 공격
+        ItemStack weapon = getMainHand(guard);
+        boolean ranged = isRangedWeapon(weapon);
+
+        if (ranged) {
+            if (distSq <= (RANGED_MAX_DISTANCE * RANGED_MAX_DISTANCE)) {
+                long last = lastRangedAt.get(npc.getId(), 0L);
+                if (now - last >= RANGED_COOLDOWN_MS) {
+                    doRangedAttack(guard, target);
+                    lastRangedAt.put(npc.getId(), now);
                 }
             }
-        }, 20L, 10L);
+        } else {
+            if (distSq <= (MELEE_RANGE * MELEE_RANGE)) {
+                long last = lastAttackAt.get(npc.getId(), 0L);
+                if (now - last >= ATTACK_COOLDOWN_MS) {
+                    double dmg = calculateMeleeDamage(guard, weapon);
+                    target.damage(dmg, guard);
+                    lastAttackAt.put(npc.getId(), now);
+                }
+            }
+        }
     }
 
     private ItemStack getMainHand(LivingEntity e) {
@@ -196,26 +290,15 @@ public class GuardLoop {
         return Math.max(1.0, weaponBase + (attr * 0.25));
     }
 
-    private Player findNearestEnemy(Location guardLoc, FeudalService.FamilyLand land, int guardFamilyId) {
+    private Player findNearestEnemy(Location guardLoc, List<IntruderBoard.Intruder> intruders) {
         Player best = null;
-        double bestDist = Double.MAX_VALUE;
-
-        for (Player p : guardLoc.getWorld().getPlayers()) {
-            if (!p.isOnline() || p.isDead()) continue;
-            if (p.hasPermission("feudal.admin")) continue;
-            if (!isInside(p.getLocation(), land)) continue;
-
-            try {
-                var pf = feudalService.getFamilyIdOf(p.getUniqueId());
-                if (pf.isPresent() && pf.get() == guardFamilyId) continue;
-            } catch (SQLException e) {
-                continue;
-            }
+        double bestDist = AGGRO_RADIUS * AGGRO_RADIUS;
 
-            double d = guardLoc.distanceSquared(p.getLocation());
-            if (d <= (AGGRO_RADIUS * AGGRO_RADIUS) && d < bestDist) {
+        for (IntruderBoard.Intruder in : intruders) {
+            double d = guardLoc.distanceSquared(in.loc());
+            if (d <= bestDist) {
                 bestDist = d;
-                best = p;
+                best = in.player();
             }
         }
         return best;
@@ -0,0 +1,120 @@
+package com.example.feudal.npc;
+
+import com.example.feudal.service.FeudalService;
+import net.citizensnpcs.api.ai.Navigator;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 가드 길찾기 중복 제거 (메인 스레드 전용).
+ * 가드마다 마지막으로 내린 목표(추적 대상/초소)를 기억해 두고
+ * - 추적: 대상이 바뀌었거나, 목표를 잡은 뒤 REPATH_DIST 넘게 움직였거나, 길찾기가 끝나고 REISSUE_MS 지났을 때만 setTarget
+ * - 한가함: 초소로 한 번만 보내고, 도착했거나 가는 중이면 그대로 둠
+ * Citizens 의 setTarget 은 매번 경로 계산을 새로 시작하므로 같은 목표를 반복해서 주지 않는 게 핵심.
+ */
+final class GuardNavigator {
+
+    private static final double REPATH_DIST_SQ = 3.0 * 3.0;   // 대상이 이만큼 움직이면 다시 길찾기
+    private static final double HOME_RADIUS_SQ = 2.0 * 2.0;   // 초소 도착 판정
+    private static final long REISSUE_MS = 2_000L;            // 길찾기가 멈춘 뒤 같은 목표 재시도 간격
+
+    /** target == null 이면 초소로 가는 중 */
+    private record Goal(UUID target, String world, double x, double y, double z, long issuedAt) {}
+
+    private final Map<Integer, Goal> goals = new HashMap<>();
+
+    private volatile long issued;
+    private volatile long skipped;
+
+    void chase(NPC npc, Player target, long now) {
+        Location tl = target.getLocation();
+        Goal g = goals.get(npc.getId());
+        Navigator nav = npc.getNavigator();
+
+        if (g != null && target.getUniqueId().equals(g.target()) && near(g, tl, REPATH_DIST_SQ)
+                && (nav.isNavigating() || now - g.issuedAt() < REISSUE_MS)) {
+            skipped++;
+            return;
+        }
+
+        try {
+            nav.setTarget(target, true);
+        } catch (Throwable ignored) {}
+        goals.put(npc.getId(), goal(target.getUniqueId(), tl, now));
+        issued++;
+    }
+
+    /**
+     * 대상이 없을 때: 초소로 복귀.
+     * 초소가 없으면 영지 안에 있을 때만 지금 자리를 초소로 정하고, 영지 밖이면 초소는 비워둔 채 영지 중심으로 보냄.
+     */
+    void idle(NPC npc, FeudalNPCTrait trait, Location current, FeudalService.FamilyLand land, boolean inside, long now) {
+        Location home = trait.getHome();
+        if (home == null && inside) {
+            trait.setHome(current);
+            home = trait.getHome();
+        }
+        if (home == null) {
+            World w = Bukkit.getWorld(land.world());
+            if (w == null) return;
+            home = new Location(w, land.x() + 0.5, land.y(), land.z() + 0.5);
+        }
+
+        Goal g = goals.get(npc.getId());
+        Navigator nav = npc.getNavigator();
+        boolean atHome = current.getWorld() == home.getWorld() && current.distanceSquared(home) <= HOME_RADIUS_SQ;
+
+        if (atHome) {
+            // 추적하다 돌아온 경우만 멈춤
+            if (g == null || g.target() != null) {
+                if (nav.isNavigating()) nav.cancelNavigation();
+                goals.put(npc.getId(), goal(null, home, now));
+            } else {
+                skipped++;
+            }
+            return;
+        }
+
+        if (g != null && g.target() == null && (nav.isNavigating() || now - g.issuedAt() < REISSUE_MS)) {
+            skipped++;
+            return;
+        }
+
+        try {
+            nav.setTarget(home);
+        } catch (Throwable ignored) {}
+        goals.put(npc.getId(), goal(null, home, now));
+        issued++;
+    }
+
+    void forget(int npcId) {
+        goals.remove(npcId);
+    }
+
+    long issued() {
+        return issued;
+    }
+
+    long skipped() {
+        return skipped;
+    }
+
+    private static Goal goal(UUID target, Location l, long now) {
+        return new Goal(target, l.getWorld().getName(), l.getX(), l.getY(), l.getZ(), now);
+    }
+
+    private static boolean near(Goal g, Location l, double distSq) {
+        if (l.getWorld() == null || !l.getWorld().getName().equals(g.world())) return false;
+        double dx = l.getX() - g.x();
+        double dy = l.getY() - g.y();
+        double dz = l.getZ() - g.z();
+        return dx * dx + dy * dy + dz * dz <= distSq;
+    }
+}
\ No newline at end of file
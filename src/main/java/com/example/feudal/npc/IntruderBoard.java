@@ -0,0 +1,80 @@
+package com.example.feudal.npc;
+
+import com.example.feudal.model.MemberRecord;
+import com.example.feudal.service.FeudalService;
+import com.example.feudal.service.MemberCache;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 가드 틱마다 새로 만드는 침입자 목록 (메인 스레드 전용, DB 안 감).
+ * - 월드별 후보(살아있고 관리자 아닌 플레이어 + 캐시된 가문)는 틱당 한 번
+ * - 영지별 침입자(영지 안에 있는 다른 가문 플레이어)는 그 영지 가드가 처음 물어볼 때 한 번
+ * 가드 수 x 플레이어 수 만큼 돌던 걸 영지 수 x 플레이어 수로 줄이고, 가드는 작은 목록에서만 고른다.
+ */
+final class IntruderBoard {
+
+    /** familyId 가 NO_FAMILY 면 가문 없음 */
+    record Intruder(Player player, Location loc, int familyId) {}
+
+    private static final int NO_FAMILY = -1;
+
+    private final MemberCache members;
+    private final Map<String, List<Intruder>> candidates = new HashMap<>();
+    private final Map<Integer, List<Intruder>> byLand = new HashMap<>();
+
+    IntruderBoard(MemberCache members) {
+        this.members = members;
+    }
+
+    /** 틱 시작 시 호출 */
+    void reset() {
+        candidates.clear();
+        byLand.clear();
+    }
+
+    List<Intruder> intruders(FeudalService.FamilyLand land) {
+        List<Intruder> cur = byLand.get(land.familyId());
+        if (cur != null) return cur;
+
+        List<Intruder> out = new ArrayList<>();
+        long r2 = (long) land.radius() * land.radius();
+        for (Intruder c : candidates(land.world())) {
+            if (c.familyId() == land.familyId()) continue;
+            long dx = c.loc().getBlockX() - land.x();
+            long dz = c.loc().getBlockZ() - land.z();
+            if (dx * dx + dz * dz <= r2) out.add(c);
+        }
+        byLand.put(land.familyId(), out);
+        return out;
+    }
+
+    private List<Intruder> candidates(String worldName) {
+        List<Intruder> cur = candidates.get(worldName);
+        if (cur != null) return cur;
+
+        List<Intruder> out = new ArrayList<>();
+        World world = Bukkit.getWorld(worldName);
+        if (world != null) {
+            for (Player p : world.getPlayers()) {
+                if (!p.isOnline() || p.isDead()) continue;
+                if (p.hasPermission("feudal.admin")) continue;
+                // 접속 직후 캐시 로드 전이면 이번 틱은 건너뜀 (가문을 모르는 채로 공격하지 않게)
+                if (!members.isCached(p.getUniqueId())) continue;
+
+                MemberRecord r = members.peek(p.getUniqueId());
+                int fid = r == null || r.familyId() == null ? NO_FAMILY : r.familyId();
+                out.add(new Intruder(p, p.getLocation(), fid));
+            }
+        }
+        candidates.put(worldName, out);
+        return out;
+    }
+}
\ No newline at end of file
@@ -1,122 +1,82 @@
 package com.example.feudal.npc;
 
+import com.example.feudal.merchant.MerchantGui;
+import com.example.feudal.merchant.MerchantService;
+import com.example.feudal.merchant.MerchantStock;
+import com.example.feudal.merchant.ShopCatalog;
+import com.example.feudal.util.InventoryTally;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
-public class MerchantBuyListener implements Listener {
+/**
+ * 상점 구매 (MerchantGuiListener 가 SHOP 화면 클릭만 넘겨줌).
+ * 재고 규칙이 있는 슬롯은 MerchantStock 에서 한 개씩 차감.
+ * 가격은 카탈로그에서 슬롯 번호로 찾는다
+ * (아이템 로어는 안 읽으므로 로어를 고쳐 가격을 속일 수 없고, 클릭마다 정규식/로어 복사 없음).
+ */
+public class MerchantBuyListener {
 
-    private static final String SHOP_TITLE_PREFIX = "§6상인";
+    private final MerchantService merchant;
 
-    @EventHandler
-    public void onClick(InventoryClickEvent e) {
-        if (!(e.getWhoClicked() instanceof Player p)) return;
-
-        String title = e.getView().getTitle();
-        if (title == null || !title.startsWith(SHOP_TITLE_PREFIX)) return;
+    public MerchantBuyListener(MerchantService merchant) {
+        this.merchant = merchant;
+    }
 
+    public void onClick(Player p, MerchantGui gui, InventoryClickEvent e) {
         // 상점 GUI는 클릭으로 아이템 이동 못하게 막기
         e.setCancelled(true);
 
+        // 위쪽(상점) 칸만 상품
+        int slot = e.getRawSlot();
+        if (slot < 0 || slot >= e.getView().getTopInventory().getSize()) return;
+
         ItemStack clicked = e.getCurrentItem();
         if (clicked == null || clicked.getType() == Material.AIR) return;
 
-        int cost = parseCost(clicked);
+        ShopCatalog catalog = merchant.storage().catalog(gui.npcId());
+        int cost = catalog.price(slot);
         if (cost <= 0) {
             p.sendMessage("§c이 상품은 가격이 설정되어 있지 않아!");
             return;
         }
+        if (!catalog.matches(slot, clicked)) {
+            p.closeInventory();
+            p.sendMessage("§c상점 구성이 바뀌었어. 다시 열어줘!");
+            return;
+        }
 
-        if (!hasEmerald(p, cost)) {
-            p.sendMessage("§c에메랄드가 부족해! (§e" + cost + "§c 필요)");
+        // 재고 확인 -> 에메랄드 확인/차감 -> 재고 차감 -> 지급 (메인 스레드에서 한 번에, 중간에 끼어드는 구매 없음)
+        MerchantStock stock = merchant.stock();
+        long now = System.currentTimeMillis();
+        if (stock.available(gui.npcId(), slot) == 0) {
+            long wait = stock.untilRestock(gui.npcId(), slot, now);
+            p.sendMessage(wait < 0
+                    ? "§c품절이야!"
+                    : "§c품절이야! §7(다음 입고까지 약 " + Math.max(1, (wait + 59_999) / 60_000) + "분)");
             return;
         }
 
-        removeEmerald(p, cost);
+        InventoryTally tally = InventoryTally.of(p.getInventory());
+        if (!tally.has(Material.EMERALD, cost)) {
+            p.sendMessage("§c에메랄드가 부족해! (§e" + cost + "§c 필요)");
+            return;
+        }
 
-        ItemStack give = removePriceLore(clicked.clone());
+        tally.remove(Material.EMERALD, cost);
+        tally.commit();
+        int left = stock.take(gui.npcId(), slot, now);
 
-        Map<Integer, ItemStack> leftover = p.getInventory().addItem(give);
+        Map<Integer, ItemStack> leftover = p.getInventory().addItem(catalog.goods(slot));
         if (!leftover.isEmpty()) {
             leftover.values().forEach(it ->
                     p.getWorld().dropItemNaturally(p.getLocation(), it)
             );
         }
 
-        p.sendMessage("§a구매 완료! §e-" + cost + " §a에메랄드");
-    }
-
-    private int parseCost(ItemStack item) {
-        if (!item.hasItemMeta()) return -1;
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null || meta.getLore() == null) return -1;
-
-        for (String line : meta.getLore()) {
-            String plain = stripColor(line).trim();
-
-            if (!plain.contains("가격")) continue;
-
-
-            String digits = plain.replaceAll("[^0-9]", "");
-            if (digits.isEmpty()) continue;
-
-            try { return Integer.parseInt(digits); }
-            catch (Exception ignored) {}
-        }
-        return -1;
-    }
-
-    private String stripColor(String s) {
-        if (s == null) return "";
-        return s.replaceAll("§[0-9a-fk-orA-FK-OR]", "");
-    }
-
-
-    private ItemStack removePriceLore(ItemStack item) {
-        if (!item.hasItemMeta()) return item;
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null || meta.getLore() == null) return item;
-
-        List<String> lore = meta.getLore();
-        List<String> newLore = new ArrayList<>();
-
-        for (String line : lore) {
-            String plain = stripColor(line);
-            if (plain.contains("가격")) continue;
-            newLore.add(line);
-        }
-
-        meta.setLore(newLore.isEmpty() ? null : newLore);
-        item.setItemMeta(meta);
-        return item;
-    }
-
-    private boolean hasEmerald(Player p, int amount) {
-        return p.getInventory().containsAtLeast(new ItemStack(Material.EMERALD), amount);
-    }
-
-    private void removeEmerald(Player p, int amount) {
-        int left = amount;
-        var inv = p.getInventory();
-
-        for (int i = 0; i < inv.getSize(); i++) {
-            ItemStack it = inv.getItem(i);
-            if (it == null || it.getType() != Material.EMERALD) continue;
-
-            int take = Math.min(left, it.getAmount());
-            it.setAmount(it.getAmount() - take);
-            left -= take;
-
-            if (it.getAmount() <= 0) inv.setItem(i, null);
-            if (left <= 0) return;
-        }
+        p.sendMessage("§a구매 완료! §e-" + cost + " §a에메랄드" + (left >= 0 ? " §7(남은 재고 " + left + ")" : ""));
     }
 }
\ No newline at end of file
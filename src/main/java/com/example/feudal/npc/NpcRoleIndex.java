@@ -0,0 +1,97 @@
+package com.example.feudal.npc;
+
+import net.citizensnpcs.api.CitizensAPI;
+import net.citizensnpcs.api.npc.NPC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 역할별 feudal NPC id 목록.
+ * FeudalNPCTrait 가 붙을 때/역할이 바뀔 때/떨어질 때 직접 갱신한다
+ * (트레잇은 Citizens 가 리플렉션으로 만들어서 생성자로 넘길 수 없으므로 static).
+ * 역할 변경과 트레잇 설정 변경(touch)은 구독자(스케줄러)에게 알린다.
+ */
+public final class NpcRoleIndex {
+
+    /** oldRole == newRole 이면 역할은 그대로고 설정만 바뀐 것 */
+    public interface ChangeListener {
+        void changed(int npcId, NPCRole oldRole, NPCRole newRole);
+    }
+
+    private static final List<ChangeListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static final Map<NPCRole, Set<Integer>> BY_ROLE = new EnumMap<>(NPCRole.class);
+    private static final Map<Integer, NPCRole> ROLE_OF = new ConcurrentHashMap<>();
+
+    static {
+        for (NPCRole r : NPCRole.values()) BY_ROLE.put(r, ConcurrentHashMap.newKeySet());
+    }
+
+    private NpcRoleIndex() {}
+
+    /** 해당 역할 NPC id (읽기 전용 뷰) */
+    public static Set<Integer> ids(NPCRole role) {
+        return Collections.unmodifiableSet(BY_ROLE.get(role));
+    }
+
+    public static int size() {
+        return ROLE_OF.size();
+    }
+
+    public static void subscribe(ChangeListener l) {
+        LISTENERS.add(l);
+    }
+
+    /**
+     * onDisable 에서 호출: 구독자와 목록을 비움.
+     * static 이라 같은 클래스 로더로 다시 켜지면(플러그인 매니저 등) 예전 루프가 계속 알림을 받으므로.
+     */
+    public static void clear() {
+        LISTENERS.clear();
+        ROLE_OF.clear();
+        for (Set<Integer> ids : BY_ROLE.values()) ids.clear();
+    }
+
+    static void put(int npcId, NPCRole role) {
+        NPCRole old = role == null ? ROLE_OF.remove(npcId) : ROLE_OF.put(npcId, role);
+        if (old == role) {
+            touch(npcId);
+            return;
+        }
+        if (old != null) BY_ROLE.get(old).remove(npcId);
+        if (role != null) BY_ROLE.get(role).add(npcId);
+        for (ChangeListener l : LISTENERS) l.changed(npcId, old, role);
+    }
+
+    /** 역할은 그대로, 주기/다음 시각 등 설정이 바뀜 */
+    static void touch(int npcId) {
+        NPCRole role = ROLE_OF.get(npcId);
+        if (role == null) return;
+        for (ChangeListener l : LISTENERS) l.changed(npcId, role, role);
+    }
+
+    static void remove(int npcId) {
+        put(npcId, null);
+    }
+
+    /** Citizens 로드 직후 한 번 전체 스캔으로 맞춰둠 (트레잇 콜백을 놓친 경우 대비) */
+    public static void rebuild() {
+        Set<Integer> seen = new HashSet<>();
+        for (NPC npc : CitizensAPI.getNPCRegistry()) {
+            if (!npc.hasTrait(FeudalNPCTrait.class)) continue;
+            put(npc.getId(), npc.getTrait(FeudalNPCTrait.class).getRole());
+            seen.add(npc.getId());
+        }
+        for (Integer id : new ArrayList<>(ROLE_OF.keySet())) {
+            if (!seen.contains(id)) remove(id);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.feudal.npc;
+
+import com.example.feudal.merchant.MerchantShopStorage;
+import net.citizensnpcs.api.event.CitizensEnableEvent;
+import net.citizensnpcs.api.event.NPCRemoveEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/** NpcRoleIndex 보정: Citizens 로드 완료 시 전체 재구성, NPC 삭제 시 제거 (상점/재고 규칙도 같이) */
+public class NpcRoleListener implements Listener {
+
+    private final MerchantShopStorage shops;
+
+    public NpcRoleListener(MerchantShopStorage shops) {
+        this.shops = shops;
+    }
+
+    @EventHandler
+    public void onCitizensEnable(CitizensEnableEvent e) {
+        NpcRoleIndex.rebuild();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRemove(NPCRemoveEvent e) {
+        NpcRoleIndex.remove(e.getNPC().getId());
+        shops.remove(e.getNPC().getId());
+    }
+}
\ No newline at end of file
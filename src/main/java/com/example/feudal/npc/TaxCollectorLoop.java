@@ -2,6 +2,7 @@ package com.example.feudal.npc;
 
 import com.example.feudal.service.FeudalService;
 import com.example.feudal.service.TaxService;
+import com.example.feudal.util.InventoryTally;
 import net.citizensnpcs.api.CitizensAPI;
 import net.citizensnpcs.api.npc.NPC;
 import org.bukkit.Bukkit;
@@ -10,9 +11,9 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.UUID;
+import java.util.*;
 
-public class TaxCollectorLoop {
+public class TaxCollectorLoop implements FeudalNpcScheduler.DueTask {
     private final JavaPlugin plugin;
     private final TaxService taxService;
     private final FeudalService feudalService;
@@ -23,88 +24,126 @@ public class TaxCollectorLoop {
         this.feudalService = feudalService;
     }
 
-    public void start() {
-        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            long now = System.currentTimeMillis();
-
-            for (NPC npc : CitizensAPI.getNPCRegistry()) {
-                if (!npc.hasTrait(FeudalNPCTrait.class)) continue;
-                FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
-                if (trait.getRole() != NPCRole.TAX_COLLECTOR) continue;
-
-                Integer familyId = trait.getFamilyId();
-                int amount = trait.getTaxAmount();
-                if (familyId == null || amount <= 0) continue;
-
-                trait.initNextIfNeeded(now);
-                if (now < trait.getNextCollectAtMs()) continue;
-
-                // 1) 이번 주기 세금 청구(각 구성원 due + amount)
-                try {
-                    for (UUID uuid : feudalService.getMembersOfFamily(familyId)) {
-                        taxService.addDue(uuid.toString(), amount);
-
-                        Player pl = Bukkit.getPlayer(uuid);
-                        if (pl == null || !pl.isOnline()) continue;
-
-                        // 2) 자동 징수: 에메랄드로 due에서 가능한 만큼 걷기
-                        int due = taxService.getDue(uuid.toString());
-                        if (due <= 0) continue;
-
-                        int emeralds = countItem(pl, Material.EMERALD);
-                        int pay = Math.min(emeralds, due);
-
-                        if (pay > 0) {
-                            removeItem(pl, Material.EMERALD, pay);
-                            taxService.reduceDue(uuid.toString(), pay);
-                            taxService.addToBank(familyId, pay);
-                            taxService.recordLedger(familyId, npc.getId(), pay, "AUTO_TAX(EMERALD)", now);
-
-                            int left = taxService.getDue(uuid.toString());
-                            pl.sendMessage("§a[세금] 자동 징수 완료: §e" + pay + "§a (에메랄드) / 미납: §e" + left);
-                        }
-
-                        // 3) 미납 남아있으면 경고
-                        int left = taxService.getDue(uuid.toString());
-                        if (left > 0) {
-                            pl.sendMessage("§c[세금] 미납이 있습니다! §e" + left + "§c (에메랄드가 부족함)");
-                        }
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().warning("[TaxLoop] 처리 실패: " + e.getMessage());
-                    trait.setNextCollectAtMs(now + 10_000L);
-                    continue;
-                }
+    @Override
+    public NPCRole role() {
+        return NPCRole.TAX_COLLECTOR;
+    }
 
-                trait.setNextCollectAtMs(now + trait.getIntervalMs());
-            }
-        }, 20L, 20L); // 1초마다 체크
+    @Override
+    public long nextDueAt(NPC npc, long now) {
+        FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
+        if (trait.getFamilyId() == null || trait.getTaxAmount() <= 0) return -1;
+
+        long next = trait.getNextCollectAtMs();
+        return next <= 0 ? now + trait.getIntervalMs() : next;
     }
 
-    private int countItem(Player p, Material mat) {
-        int sum = 0;
-        for (ItemStack it : p.getInventory().getContents()) {
-            if (it == null) continue;
-            if (it.getType() == mat) sum += it.getAmount();
+    @Override
+    public void run(NPC npc, long now) {
+        FeudalNPCTrait trait = npc.getTrait(FeudalNPCTrait.class);
+
+        Integer familyId = trait.getFamilyId();
+        int amount = trait.getTaxAmount();
+        if (familyId == null || amount <= 0) return;
+
+        trait.initNextIfNeeded(now);
+        if (now < trait.getNextCollectAtMs()) return;
+
+        // DB 처리 중에 다시 잡히지 않게 다음 주기를 먼저 예약 (실패 시 fail()에서 10초 뒤로)
+        trait.setNextCollectAtMs(now + trait.getIntervalMs());
+        collect(npc.getId(), familyId, amount, now);
+    }
+
+    private void collect(int npcId, int familyId, int amount, long now) {
+        // 1) 이번 주기 세금 청구: 가문 전체 upsert 한 번 -> 구성원별 미납액 (DB 스레드)
+        taxService.executor().whenDone(
+                taxService.billFamilyAsync(familyId, amount),
+                dues -> settle(npcId, familyId, dues, now),
+                err -> fail(npcId, err)
+        );
+    }
+
+    private void settle(int npcId, int familyId, Map<UUID, Integer> dues, long now) {
+        // 2) 자동 징수: 에메랄드 회수와 남은 미납 계산은 메인 스레드에서 메모리로
+        Map<UUID, Integer> paid = new HashMap<>();
+        Map<UUID, Integer> left = new HashMap<>();
+        for (var e : dues.entrySet()) {
+            int due = e.getValue();
+            if (due <= 0) continue;
+
+            Player pl = Bukkit.getPlayer(e.getKey());
+            if (pl == null || !pl.isOnline()) continue;
+
+            // 세기와 빼기를 같은 복사본에서, 쓰기는 setContents 한 번
+            InventoryTally tally = InventoryTally.of(pl.getInventory());
+            int pay = tally.remove(Material.EMERALD, due);
+            if (pay > 0) {
+                tally.commit();
+                pl.updateInventory();
+                paid.put(e.getKey(), pay);
+            }
+            left.put(e.getKey(), due - pay);
+        }
+        if (left.isEmpty()) return;
+
+        if (paid.isEmpty()) {
+            notifyPayers(paid, left);
+            return;
         }
-        return sum;
+
+        // 미납/금고/장부 반영은 DB 스레드에서 한 트랜잭션으로 (그 시점 미납 기준, 더 걷힌 건 돌려줌)
+        taxService.executor().whenDone(
+                taxService.settleFamilyAsync(familyId, npcId, paid, "AUTO_TAX(EMERALD)", now),
+                s -> {
+                    refund(s.excess(), "§a[세금] 이미 처리된 미납이라 에메랄드 §e%d§a개를 돌려드렸습니다.");
+                    left.putAll(s.left());
+                    notifyPayers(s.applied(), left);
+                },
+                err -> {
+                    refund(paid, "§c[세금] 징수 처리 실패로 에메랄드 §e%d§c개를 돌려드렸습니다.");
+                    fail(npcId, err);
+                }
+        );
     }
 
-    private void removeItem(Player p, Material mat, int amount) {
-        int left = amount;
-        ItemStack[] contents = p.getInventory().getContents();
-        for (int i = 0; i < contents.length; i++) {
-            ItemStack it = contents[i];
-            if (it == null || it.getType() != mat) continue;
+    private void notifyPayers(Map<UUID, Integer> paid, Map<UUID, Integer> left) {
+        for (var e : left.entrySet()) {
+            Player pl = Bukkit.getPlayer(e.getKey());
+            if (pl == null || !pl.isOnline()) continue;
 
-            int take = Math.min(it.getAmount(), left);
-            it.setAmount(it.getAmount() - take);
-            left -= take;
+            int pay = paid.getOrDefault(e.getKey(), 0);
+            int due = e.getValue();
+            if (pay > 0) {
+                pl.sendMessage("§a[세금] 자동 징수 완료: §e" + pay + "§a (에메랄드) / 미납: §e" + due);
+            }
 
-            if (it.getAmount() <= 0) contents[i] = null;
-            if (left <= 0) break;
+            // 3) 미납 남아있으면 경고
+            if (due > 0) {
+                pl.sendMessage("§c[세금] 미납이 있습니다! §e" + due + "§c (에메랄드가 부족함)");
+            }
         }
-        p.getInventory().setContents(contents);
-        p.updateInventory();
+    }
+
+    /** DB 반영 실패(트랜잭션 롤백) 또는 미납보다 더 걷힌 에메랄드 돌려주기 */
+    private void refund(Map<UUID, Integer> paid, String message) {
+        for (var e : paid.entrySet()) {
+            Player pl = Bukkit.getPlayer(e.getKey());
+            if (pl == null || !pl.isOnline()) {
+                plugin.getLogger().warning("[TaxLoop] 환불 대상 오프라인: " + e.getKey() + " 에메랄드 " + e.getValue());
+                continue;
+            }
+
+            var overflow = pl.getInventory().addItem(new ItemStack(Material.EMERALD, e.getValue()));
+            overflow.values().forEach(it -> pl.getWorld().dropItemNaturally(pl.getLocation(), it));
+            pl.sendMessage(String.format(message, e.getValue()));
+        }
+    }
+
+    private void fail(int npcId, Throwable err) {
+        plugin.getLogger().warning("[TaxLoop] 처리 실패: " + err.getMessage());
+
+        NPC npc = CitizensAPI.getNPCRegistry().getById(npcId);
+        if (npc == null || !npc.hasTrait(FeudalNPCTrait.class)) return;
+        npc.getTrait(FeudalNPCTrait.class).setNextCollectAtMs(System.currentTimeMillis() + 10_000L);
     }
 }
\ No newline at end of file
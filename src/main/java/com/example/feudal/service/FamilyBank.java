@@ -0,0 +1,190 @@
+package com.example.feudal.service;
+
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 가문 금고.
+ * 잔액은 가문별 AtomicLong 에 두고 그 가문 칸의 compute 안에서만 바꾼다 (조회/입금은 DB 를 기다리지 않음).
+ * - 입금: 메모리에 더하고 DB upsert 는 writer 큐로
+ * - 인출: 메모리에서 먼저 잡아두고 UPDATE ... WHERE balance >= ? 가 성공해야 확정 (실패 시 되돌림)
+ *   DB 가 모자라서 실패하면 같은 AtomicLong 을 DB 값 + 아직 DB 에 안 간 변동으로 다시 맞춤 (객체를 바꾸지 않음)
+ * - 모든 변동은 LedgerWriter 장부에 남김
+ * DB 의 금고 변경은 전부 상대값(balance ± ?)이라 writer 큐 순서와 상관없이 맞는다.
+ */
+public class FamilyBank {
+
+    private final DbExecutor db;
+    private final LedgerWriter ledger;
+    private final Map<Integer, AtomicLong> balances = new ConcurrentHashMap<>();
+    // 메모리에는 반영했지만 아직 DB 에 안 간 변동 합계 (입금 +, 잡아둔 인출 -). writer 스레드에서만 줄어듦
+    private final Map<Integer, AtomicLong> inflight = new ConcurrentHashMap<>();
+
+    public FamilyBank(DbExecutor db, LedgerWriter ledger) {
+        this.db = db;
+        this.ledger = ledger;
+    }
+
+    // --------------------
+    // 조회
+    // --------------------
+    public long balance(int familyId) throws SQLException {
+        return slot(familyId).get();
+    }
+
+    public int cachedFamilies() {
+        return balances.size();
+    }
+
+    // --------------------
+    // 변동
+    // --------------------
+    public void deposit(int familyId, long amount, int npcId, String reason) throws SQLException {
+        if (amount <= 0) return;
+        slot(familyId);
+        change(familyId, amount);
+
+        db.asyncRun(conn -> {
+            try {
+                depositRow(conn, familyId, amount);
+            } finally {
+                inflight(familyId).addAndGet(-amount);
+            }
+        }).exceptionally(err -> {
+            db.logger().warning("[Bank] 입금 기록 실패(가문 " + familyId + ", " + amount + "): " + err.getMessage());
+            return null;
+        });
+        ledger.append(new LedgerWriter.Entry(familyId, npcId, (int) amount, reason, System.currentTimeMillis()));
+    }
+
+    /** 잔액이 모자라면 false. 성공하면 DB 반영까지 끝난 상태 */
+    public boolean withdraw(int familyId, long amount, String reason) throws SQLException {
+        if (amount <= 0) return false;
+
+        slot(familyId);
+        boolean[] held = {false};
+        balances.computeIfPresent(familyId, (k, bal) -> {
+            if (bal.get() < amount) return bal;
+            bal.addAndGet(-amount);
+            inflight(familyId).addAndGet(-amount);
+            held[0] = true;
+            return bal;
+        });
+        if (!held[0]) return false;
+
+        boolean ok;
+        try {
+            ok = db.call(conn -> {
+                try (StatementCache.Stmt ps = conn.prepare("""
+                    UPDATE family_bank
+                    SET balance = balance - ?
+                    WHERE family_id = ? AND balance >= ?
+                """)) {
+                    ps.setLong(1, amount);
+                    ps.setInt(2, familyId);
+                    ps.setLong(3, amount);
+                    if (ps.executeUpdate() == 1) {
+                        inflight(familyId).addAndGet(amount); // 이제 DB 에도 들어감
+                        return true;
+                    }
+                }
+                // 메모리와 DB 가 어긋난 경우: 잡아둔 걸 되돌리고 writer 안에서 (다른 금고 쓰기와 안 섞이게) DB 값으로 다시 맞춤
+                change(familyId, amount);
+                resync(conn, familyId);
+                return false;
+            });
+        } catch (SQLException | RuntimeException e) {
+            change(familyId, amount);
+            throw e;
+        }
+        if (!ok) return false;
+
+        ledger.append(new LedgerWriter.Entry(familyId, 0, (int) -amount, reason, System.currentTimeMillis()));
+        return true;
+    }
+
+    // --------------------
+    // 트랜잭션 안에서 쓰는 용도 (TaxService.settleFamily)
+    // --------------------
+
+    /** DB 행만 반영. 커밋 후 같은 writer 작업 안에서 credit() 을 불러야 함 */
+    void depositRow(StatementCache conn, int familyId, long amount) throws SQLException {
+        try (StatementCache.Stmt ps = conn.prepare("""
+            INSERT INTO family_bank(family_id, balance)
+            VALUES(?, ?)
+            ON CONFLICT(family_id) DO UPDATE SET balance = balance + excluded.balance
+        """)) {
+            ps.setInt(1, familyId);
+            ps.setLong(2, amount);
+            ps.executeUpdate();
+        }
+    }
+
+    /** 이미 DB 에 들어간 입금을 메모리에 반영 (아직 안 읽힌 가문은 다음 조회 때 DB 값으로 읽힘) */
+    void credit(int familyId, long amount) {
+        AtomicLong bal = balances.get(familyId);
+        if (bal != null) bal.addAndGet(amount);
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private AtomicLong inflight(int familyId) {
+        return inflight.computeIfAbsent(familyId, k -> new AtomicLong());
+    }
+
+    /** 메모리 잔액과 아직 DB 에 안 간 변동을 같은 칸 잠금 안에서 같이 바꿈 (resync 와 섞이지 않게) */
+    private void change(int familyId, long delta) {
+        balances.computeIfPresent(familyId, (k, bal) -> {
+            bal.addAndGet(delta);
+            inflight(familyId).addAndGet(delta);
+            return bal;
+        });
+    }
+
+    /**
+     * writer 스레드에서만: 잔액 = DB 값 + 아직 DB 에 안 간 변동.
+     * 같은 AtomicLong 을 칸 잠금(compute) 안에서 고치므로 그 객체를 들고 있던 쪽의 변동도 그대로 남음.
+     */
+    private void resync(StatementCache conn, int familyId) throws SQLException {
+        long loaded = loadRow(conn, familyId);
+        balances.compute(familyId, (k, bal) -> {
+            long expected = loaded + inflight(familyId).get();
+            if (bal == null) return new AtomicLong(expected);
+            bal.set(expected);
+            return bal;
+        });
+    }
+
+    private static long loadRow(StatementCache conn, int familyId) throws SQLException {
+        try (StatementCache.Stmt ps = conn.prepare("SELECT balance FROM family_bank WHERE family_id = ?")) {
+            ps.setInt(1, familyId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("balance") : 0L;
+            }
+        }
+    }
+
+    /**
+     * 처음 보는 가문은 writer 큐에서 읽고 등록까지 writer 에서 한다
+     * (밀려있는 금고 쓰기보다 뒤에서 읽고, credit() 과 순서가 섞이지 않도록).
+     */
+    private AtomicLong slot(int familyId) throws SQLException {
+        AtomicLong bal = balances.get(familyId);
+        if (bal != null) return bal;
+
+        return db.call(conn -> {
+            AtomicLong cur = balances.get(familyId);
+            if (cur != null) return cur;
+
+            long loaded = loadRow(conn, familyId);
+            return balances.computeIfAbsent(familyId, k -> new AtomicLong(loaded));
+        });
+    }
+}
\ No newline at end of file
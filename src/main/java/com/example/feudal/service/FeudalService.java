@@ -1,11 +1,17 @@
 package com.example.feudal.service;
 
+import com.example.feudal.land.LandIndex;
 import com.example.feudal.model.Job;
+import com.example.feudal.model.MemberRecord;
 import com.example.feudal.model.Rank;
 import com.example.feudal.storage.Database;
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FeudalService {
 
@@ -19,10 +25,26 @@ public class FeudalService {
             boolean enabled
     ) {}
 
-    private final Connection conn;
+    /** npc_members 한 행 (familyId 는 null 가능) */
+    public record NpcMember(Integer familyId, Job job, boolean serf) {}
+
+    private final DbExecutor db;
+    private final MemberCache members;
+    private final LandIndex lands = new LandIndex();
+    // npc_members 는 작아서 전부 메모리에 둠 (loadNpcMembers 후 쓰기마다 같이 갱신)
+    private final Map<Integer, NpcMember> npcMembers = new ConcurrentHashMap<>();
 
     public FeudalService(Database db) {
-        this.conn = db.conn();
+        this.db = db.executor();
+        this.members = new MemberCache(this.db);
+    }
+
+    public DbExecutor executor() {
+        return db;
+    }
+
+    public MemberCache members() {
+        return members;
     }
 
     // ----------------------------
@@ -30,33 +52,30 @@ public class FeudalService {
     // ----------------------------
 
     public Optional<Integer> getFamilyIdOf(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT family_id FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return Optional.empty();
-                int fid = rs.getInt("family_id");
-                return rs.wasNull() ? Optional.empty() : Optional.of(fid);
-            }
-        }
+        return members.get(uuid).map(MemberRecord::familyId);
     }
 
     public Optional<Integer> getFamilyIdByName(String name) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT id FROM families WHERE name = ?")) {
-            ps.setString(1, name);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return Optional.empty();
-                return Optional.of(rs.getInt("id"));
+        return db.read(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("SELECT id FROM families WHERE name = ?")) {
+                ps.setString(1, name);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return Optional.empty();
+                    return Optional.of(rs.getInt("id"));
+                }
             }
-        }
+        });
     }
 
     public String getFamilyNameById(int familyId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT name FROM families WHERE id = ?")) {
-            ps.setInt(1, familyId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getString("name") : "UNKNOWN";
+        return db.read(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("SELECT name FROM families WHERE id = ?")) {
+                ps.setInt(1, familyId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getString("name") : "UNKNOWN";
+                }
             }
-        }
+        });
     }
 
     public String getFamilyInfoById(int familyId) throws SQLException {
@@ -65,397 +84,419 @@ public class FeudalService {
         return "가문: " + name + " / 인원: " + members;
     }
 
+    // members 는 write-behind 라 읽기 풀에서는 아직 안 쓰인 행이 안 보일 수 있음 -> writer 에서 조회
     private int countMembers(int familyId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) AS c FROM members WHERE family_id = ?")) {
-            ps.setInt(1, familyId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt("c") : 0;
+        return db.call(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("SELECT COUNT(*) AS c FROM members WHERE family_id = ?")) {
+                ps.setInt(1, familyId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt("c") : 0;
+                }
             }
-        }
+        });
     }
 
     public void createFamily(String name, UUID owner) throws SQLException {
-        int newId;
-        try (PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO families(name, lord_uuid) VALUES(?, ?)",
-                Statement.RETURN_GENERATED_KEYS
-        )) {
-            ps.setString(1, name);
-            ps.setString(2, owner.toString());
-            ps.executeUpdate();
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (!keys.next()) throw new SQLException("가문 ID 생성 실패");
-                newId = keys.getInt(1);
+        db.run(conn -> {
+            int newId;
+            try (StatementCache.Stmt ps = conn.prepareWithKeys("INSERT INTO families(name, lord_uuid) VALUES(?, ?)")) {
+                ps.setString(1, name);
+                ps.setString(2, owner.toString());
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (!keys.next()) throw new SQLException("가문 ID 생성 실패");
+                    newId = keys.getInt(1);
+                }
             }
-        }
 
-        setMember(owner, newId, Rank.KING);
-        setJob(owner, Job.NONE);
-        setSerf(owner, false);
+            setMember(owner, newId, Rank.KING);
+            setJob(owner, Job.NONE);
+            setSerf(owner, false);
+        });
     }
 
     /** members upsert (uuid PK) */
     public void setMember(UUID uuid, int familyId, Rank rank) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("""
-            INSERT INTO members(uuid, family_id, rank, job, is_serf)
-            VALUES(?, ?, ?, 'NONE', 0)
-            ON CONFLICT(uuid) DO UPDATE SET
-              family_id = excluded.family_id,
-              rank = excluded.rank
-        """)) {
-            ps.setString(1, uuid.toString());
-            ps.setInt(2, familyId);
-            ps.setString(3, rank.name());
-            ps.executeUpdate();
-        }
+        members.upsert(uuid,
+                MemberRecord.newMember(uuid, familyId, rank),
+                r -> r.withFamily(familyId, rank),
+                conn -> {
+                    try (StatementCache.Stmt ps = conn.prepare("""
+                        INSERT INTO members(uuid, family_id, rank, job, is_serf)
+                        VALUES(?, ?, ?, 'NONE', 0)
+                        ON CONFLICT(uuid) DO UPDATE SET
+                          family_id = excluded.family_id,
+                          rank = excluded.rank
+                    """)) {
+                        ps.setString(1, uuid.toString());
+                        ps.setInt(2, familyId);
+                        ps.setString(3, rank.name());
+                        ps.executeUpdate();
+                    }
+                });
     }
 
     public Rank getRank(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT rank FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return Rank.PEASANT;
-                String r = rs.getString("rank");
-                try { return Rank.valueOf(r); } catch (Exception ignored) { return Rank.PEASANT; }
-            }
-        }
+        return members.get(uuid).map(MemberRecord::rank).orElse(Rank.PEASANT);
     }
 
     public Job getJob(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT job FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return Job.NONE;
-                String j = rs.getString("job");
-                try { return Job.valueOf(j); } catch (Exception ignored) { return Job.NONE; }
-            }
-        }
+        return members.get(uuid).map(MemberRecord::job).orElse(Job.NONE);
     }
     public void setJob(UUID uuid, Job job) throws SQLException {
         if (isSerf(uuid) && job != Job.NONE) {
             throw new SQLException("SERF_CANNOT_HAVE_JOB");
         }
-        try (PreparedStatement ps = conn.prepareStatement("UPDATE members SET job = ? WHERE uuid = ?")) {
-            ps.setString(1, job.name());
-            ps.setString(2, uuid.toString());
-            ps.executeUpdate();
-        }
+        members.update(uuid, r -> r.withJob(job), conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("UPDATE members SET job = ? WHERE uuid = ?")) {
+                ps.setString(1, job.name());
+                ps.setString(2, uuid.toString());
+                ps.executeUpdate();
+            }
+        });
     }
 
     public boolean isSerf(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT is_serf FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return false;
-                return rs.getInt("is_serf") == 1;
-            }
-        }
+        return members.get(uuid).map(MemberRecord::serf).orElse(false);
     }
 
 
     public void setSerf(UUID uuid, boolean on) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("UPDATE members SET is_serf = ? WHERE uuid = ?")) {
-            ps.setInt(1, on ? 1 : 0);
-            ps.setString(2, uuid.toString());
-            ps.executeUpdate();
-        }
-
-        // 농노가 되면 직업 제거
-        if (on) {
-            try (PreparedStatement ps = conn.prepareStatement("UPDATE members SET job = 'NONE' WHERE uuid = ?")) {
-                ps.setString(1, uuid.toString());
+        members.update(uuid, r -> r.withSerf(on), conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("UPDATE members SET is_serf = ? WHERE uuid = ?")) {
+                ps.setInt(1, on ? 1 : 0);
+                ps.setString(2, uuid.toString());
                 ps.executeUpdate();
             }
-        }
+
+            // 농노가 되면 직업 제거
+            if (on) {
+                try (StatementCache.Stmt ps = conn.prepare("UPDATE members SET job = 'NONE' WHERE uuid = ?")) {
+                    ps.setString(1, uuid.toString());
+                    ps.executeUpdate();
+                }
+            }
+        });
     }
 
+    /** countMembers 와 같은 이유로 writer 에서 조회 */
     public List<UUID> getMembersOfFamily(int familyId) throws SQLException {
-        List<UUID> out = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement("SELECT uuid FROM members WHERE family_id = ?")) {
-            ps.setInt(1, familyId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) out.add(UUID.fromString(rs.getString("uuid")));
+        return db.call(conn -> {
+            List<UUID> out = new ArrayList<>();
+            try (StatementCache.Stmt ps = conn.prepare("SELECT uuid FROM members WHERE family_id = ?")) {
+                ps.setInt(1, familyId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) out.add(UUID.fromString(rs.getString("uuid")));
+                }
             }
-        }
-        return out;
+            return out;
+        });
     }
 
     // ----------------------------
     // Land
     // ----------------------------
 
+    /** 영지는 LandIndex 메모리에서 (시작 시 loadLands 로 적재, 변경은 아래 setter 가 같이 반영) */
     public Optional<FamilyLand> getFamilyLand(int familyId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("""
-            SELECT family_id, world, x, y, z, radius, enabled
-            FROM family_land
-            WHERE family_id = ?
-        """)) {
-            ps.setInt(1, familyId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return Optional.empty();
-                return Optional.of(new FamilyLand(
-                        rs.getInt("family_id"),
-                        rs.getString("world"),
-                        rs.getInt("x"),
-                        rs.getInt("y"),
-                        rs.getInt("z"),
-                        rs.getInt("radius"),
-                        rs.getInt("enabled") == 1
-                ));
-            }
-        }
+        return lands.get(familyId);
     }
 
     public List<FamilyLand> listEnabledFamilyLands() throws SQLException {
-        List<FamilyLand> out = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement("""
-            SELECT family_id, world, x, y, z, radius, enabled
-            FROM family_land
-            WHERE enabled = 1
-        """)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    out.add(new FamilyLand(
-                            rs.getInt("family_id"),
-                            rs.getString("world"),
-                            rs.getInt("x"),
-                            rs.getInt("y"),
-                            rs.getInt("z"),
-                            rs.getInt("radius"),
-                            rs.getInt("enabled") == 1
-                    ));
+        return lands.enabled();
+    }
+
+    public LandIndex lands() {
+        return lands;
+    }
+
+    public void loadLands() throws SQLException {
+        lands.load(db.read(conn -> {
+            List<FamilyLand> out = new ArrayList<>();
+            try (StatementCache.Stmt ps = conn.prepare("""
+                SELECT family_id, world, x, y, z, radius, enabled
+                FROM family_land
+            """)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.add(new FamilyLand(
+                                rs.getInt("family_id"),
+                                rs.getString("world"),
+                                rs.getInt("x"),
+                                rs.getInt("y"),
+                                rs.getInt("z"),
+                                rs.getInt("radius"),
+                                rs.getInt("enabled") == 1
+                        ));
+                    }
                 }
             }
-        }
-        return out;
+            return out;
+        }));
     }
 
     public void upsertFamilyLand(int familyId, String world, int x, int y, int z, int radius, boolean enabled) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("""
-            INSERT INTO family_land(family_id, world, x, y, z, radius, enabled)
-            VALUES(?, ?, ?, ?, ?, ?, ?)
-            ON CONFLICT(family_id) DO UPDATE SET
-              world = excluded.world,
-              x = excluded.x,
-              y = excluded.y,
-              z = excluded.z,
-              radius = excluded.radius,
-              enabled = excluded.enabled
-        """)) {
-            ps.setInt(1, familyId);
-            ps.setString(2, world);
-            ps.setInt(3, x);
-            ps.setInt(4, y);
-            ps.setInt(5, z);
-            ps.setInt(6, radius);
-            ps.setInt(7, enabled ? 1 : 0);
-            ps.executeUpdate();
-        }
+        db.run(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("""
+                INSERT INTO family_land(family_id, world, x, y, z, radius, enabled)
+                VALUES(?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT(family_id) DO UPDATE SET
+                  world = excluded.world,
+                  x = excluded.x,
+                  y = excluded.y,
+                  z = excluded.z,
+                  radius = excluded.radius,
+                  enabled = excluded.enabled
+            """)) {
+                ps.setInt(1, familyId);
+                ps.setString(2, world);
+                ps.setInt(3, x);
+                ps.setInt(4, y);
+                ps.setInt(5, z);
+                ps.setInt(6, radius);
+                ps.setInt(7, enabled ? 1 : 0);
+                ps.executeUpdate();
+            }
+        });
+        lands.put(new FamilyLand(familyId, world, x, y, z, radius, enabled));
     }
 
     public void setFamilyLandRadius(int familyId, int radius) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("UPDATE family_land SET radius = ? WHERE family_id = ?")) {
-            ps.setInt(1, radius);
-            ps.setInt(2, familyId);
-            ps.executeUpdate();
-        }
+        db.run(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("UPDATE family_land SET radius = ? WHERE family_id = ?")) {
+                ps.setInt(1, radius);
+                ps.setInt(2, familyId);
+                ps.executeUpdate();
+            }
+        });
+        lands.setRadius(familyId, radius);
     }
 
     public void setFamilyLandEnabled(int familyId, boolean enabled) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("UPDATE family_land SET enabled = ? WHERE family_id = ?")) {
-            ps.setInt(1, enabled ? 1 : 0);
-            ps.setInt(2, familyId);
-            ps.executeUpdate();
-        }
+        db.run(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("UPDATE family_land SET enabled = ? WHERE family_id = ?")) {
+                ps.setInt(1, enabled ? 1 : 0);
+                ps.setInt(2, familyId);
+                ps.executeUpdate();
+            }
+        });
+        lands.setEnabled(familyId, enabled);
+    }
+
+    /** 메모리에서만 조회 (매 틱 도는 루프용) */
+    public Optional<NpcMember> npcMember(int npcId) {
+        return Optional.ofNullable(npcMembers.get(npcId));
     }
 
     public Optional<Integer> getNpcFamilyId(int npcId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT family_id FROM npc_members WHERE npc_id = ?")) {
-            ps.setInt(1, npcId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return Optional.empty();
-                int fid = rs.getInt("family_id");
-                return rs.wasNull() ? Optional.empty() : Optional.of(fid);
-            }
-        }
+        NpcMember m = npcMembers.get(npcId);
+        return m == null ? Optional.empty() : Optional.ofNullable(m.familyId());
     }
 
     public Job getNpcJob(int npcId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT job FROM npc_members WHERE npc_id = ?")) {
-            ps.setInt(1, npcId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return Job.NONE;
-                String j = rs.getString("job");
-                try { return Job.valueOf(j); } catch (Exception ignored) { return Job.NONE; }
-            }
-        }
+        NpcMember m = npcMembers.get(npcId);
+        return m == null ? Job.NONE : m.job();
     }
 
     public boolean isNpcSerf(int npcId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT is_serf FROM npc_members WHERE npc_id = ?")) {
-            ps.setInt(1, npcId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) return false;
-                return rs.getInt("is_serf") == 1;
+        NpcMember m = npcMembers.get(npcId);
+        return m != null && m.serf();
+    }
+
+    public void loadNpcMembers() throws SQLException {
+        Map<Integer, NpcMember> loaded = db.read(conn -> {
+            Map<Integer, NpcMember> out = new HashMap<>();
+            try (StatementCache.Stmt ps = conn.prepare("SELECT npc_id, family_id, job, is_serf FROM npc_members")) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int fid = rs.getInt("family_id");
+                        Integer familyId = rs.wasNull() ? null : fid;
+                        Job job;
+                        try { job = Job.valueOf(rs.getString("job")); } catch (Exception ignored) { job = Job.NONE; }
+                        out.put(rs.getInt("npc_id"), new NpcMember(familyId, job, rs.getInt("is_serf") == 1));
+                    }
+                }
             }
-        }
+            return out;
+        });
+        npcMembers.clear();
+        npcMembers.putAll(loaded);
     }
 
     public void setNpcMember(int npcId, int familyId) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("""
-            INSERT INTO npc_members(npc_id, family_id, job, is_serf)
-            VALUES(?, ?, 'NONE', 0)
-            ON CONFLICT(npc_id) DO UPDATE SET
-              family_id = excluded.family_id
-        """)) {
-            ps.setInt(1, npcId);
-            ps.setInt(2, familyId);
-            ps.executeUpdate();
-        }
+        db.run(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("""
+                INSERT INTO npc_members(npc_id, family_id, job, is_serf)
+                VALUES(?, ?, 'NONE', 0)
+                ON CONFLICT(npc_id) DO UPDATE SET
+                  family_id = excluded.family_id
+            """)) {
+                ps.setInt(1, npcId);
+                ps.setInt(2, familyId);
+                ps.executeUpdate();
+            }
+        });
+        npcMembers.merge(npcId, new NpcMember(familyId, Job.NONE, false),
+                (old, n) -> new NpcMember(familyId, old.job(), old.serf()));
     }
 
     public void setNpcMember(int npcId, int familyId, Job job, boolean serf) throws SQLException {
         // NPC도 농노면 NONE만 허용 (통일)
-        if (serf && job != Job.NONE) job = Job.NONE;
-
-        try (PreparedStatement ps = conn.prepareStatement("""
-            INSERT INTO npc_members(npc_id, family_id, job, is_serf)
-            VALUES(?, ?, ?, ?)
-            ON CONFLICT(npc_id) DO UPDATE SET
-              family_id = excluded.family_id,
-              job = excluded.job,
-              is_serf = excluded.is_serf
-        """)) {
-            ps.setInt(1, npcId);
-            ps.setInt(2, familyId);
-            ps.setString(3, job.name());
-            ps.setInt(4, serf ? 1 : 0);
-            ps.executeUpdate();
-        }
+        Job safeJob = (serf && job != Job.NONE) ? Job.NONE : job;
+
+        db.run(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("""
+                INSERT INTO npc_members(npc_id, family_id, job, is_serf)
+                VALUES(?, ?, ?, ?)
+                ON CONFLICT(npc_id) DO UPDATE SET
+                  family_id = excluded.family_id,
+                  job = excluded.job,
+                  is_serf = excluded.is_serf
+            """)) {
+                ps.setInt(1, npcId);
+                ps.setInt(2, familyId);
+                ps.setString(3, safeJob.name());
+                ps.setInt(4, serf ? 1 : 0);
+                ps.executeUpdate();
+            }
+        });
+        npcMembers.put(npcId, new NpcMember(familyId, safeJob, serf));
     }
 
     public void setNpcJob(int npcId, Job job) throws SQLException {
-        if (isNpcSerf(npcId) && job != Job.NONE) {
-            throw new SQLException("SERF_CANNOT_HAVE_JOB");
-        }
-        try (PreparedStatement ps = conn.prepareStatement("UPDATE npc_members SET job = ? WHERE npc_id = ?")) {
-            ps.setString(1, job.name());
-            ps.setInt(2, npcId);
-            ps.executeUpdate();
-        }
+        db.run(conn -> {
+            if (isNpcSerf(npcId) && job != Job.NONE) {
+                throw new SQLException("SERF_CANNOT_HAVE_JOB");
+            }
+            try (StatementCache.Stmt ps = conn.prepare("UPDATE npc_members SET job = ? WHERE npc_id = ?")) {
+                ps.setString(1, job.name());
+                ps.setInt(2, npcId);
+                ps.executeUpdate();
+            }
+        });
+        npcMembers.computeIfPresent(npcId, (k, m) -> new NpcMember(m.familyId(), job, m.serf()));
     }
 
     public void setNpcSerf(int npcId, boolean on) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement("UPDATE npc_members SET is_serf = ? WHERE npc_id = ?")) {
-            ps.setInt(1, on ? 1 : 0);
-            ps.setInt(2, npcId);
-            ps.executeUpdate();
-        }
-
-        // NPC 농노도 직업 제거(통일)
-        if (on) {
-            try (PreparedStatement ps = conn.prepareStatement("UPDATE npc_members SET job = 'NONE' WHERE npc_id = ?")) {
-                ps.setInt(1, npcId);
+        db.run(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("UPDATE npc_members SET is_serf = ? WHERE npc_id = ?")) {
+                ps.setInt(1, on ? 1 : 0);
+                ps.setInt(2, npcId);
                 ps.executeUpdate();
             }
-        }
+
+            // NPC 농노도 직업 제거(통일)
+            if (on) {
+                try (StatementCache.Stmt ps = conn.prepare("UPDATE npc_members SET job = 'NONE' WHERE npc_id = ?")) {
+                    ps.setInt(1, npcId);
+                    ps.executeUpdate();
+                }
+            }
+        });
+        npcMembers.computeIfPresent(npcId, (k, m) -> new NpcMember(m.familyId(), on ? Job.NONE : m.job(), on));
     }
 
 
     public long getSerfNextDueAt(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT serf_next_due_at FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getLong("serf_next_due_at") : 0L;
-            }
-        }
+        return members.get(uuid).map(MemberRecord::serfNextDueAt).orElse(0L);
     }
 
     public void setSerfNextDueAt(UUID uuid, long nextDueAt) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE members SET serf_next_due_at = ? WHERE uuid = ?")) {
-            ps.setLong(1, nextDueAt);
-            ps.setString(2, uuid.toString());
-            ps.executeUpdate();
-        }
+        members.update(uuid, r -> r.withSerfNextDueAt(nextDueAt), conn -> {
+            try (StatementCache.Stmt ps = conn.prepare(
+                    "UPDATE members SET serf_next_due_at = ? WHERE uuid = ?")) {
+                ps.setLong(1, nextDueAt);
+                ps.setString(2, uuid.toString());
+                ps.executeUpdate();
+            }
+        });
     }
 
     public int getSerfMissCount(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT serf_miss_count FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt("serf_miss_count") : 0;
-            }
-        }
+        return members.get(uuid).map(MemberRecord::serfMissCount).orElse(0);
     }
 
     public void addSerfMissCount(UUID uuid, int add) throws SQLException {
         if (add == 0) return;
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE members SET serf_miss_count = serf_miss_count + ? WHERE uuid = ?")) {
-            ps.setInt(1, add);
-            ps.setString(2, uuid.toString());
-            ps.executeUpdate();
-        }
+        members.update(uuid, r -> r.withSerfMissCount(r.serfMissCount() + add), conn -> {
+            try (StatementCache.Stmt ps = conn.prepare(
+                    "UPDATE members SET serf_miss_count = serf_miss_count + ? WHERE uuid = ?")) {
+                ps.setInt(1, add);
+                ps.setString(2, uuid.toString());
+                ps.executeUpdate();
+            }
+        });
     }
 
     public int getSerfDeliverPoints(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT serf_deliver_points FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt("serf_deliver_points") : 0;
-            }
-        }
+        return members.get(uuid).map(MemberRecord::serfDeliverPoints).orElse(0);
     }
 
     public void setSerfDeliverPoints(UUID uuid, int points) throws SQLException {
         int safe = Math.max(0, points);
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE members SET serf_deliver_points = ? WHERE uuid = ?")) {
-            ps.setInt(1, safe);
-            ps.setString(2, uuid.toString());
-            ps.executeUpdate();
-        }
+        members.update(uuid, r -> r.withSerfDeliverPoints(safe), conn -> {
+            try (StatementCache.Stmt ps = conn.prepare(
+                    "UPDATE members SET serf_deliver_points = ? WHERE uuid = ?")) {
+                ps.setInt(1, safe);
+                ps.setString(2, uuid.toString());
+                ps.executeUpdate();
+            }
+        });
     }
 
     public long getSerfTaxDiscountUntil(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT serf_tax_discount_until FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getLong("serf_tax_discount_until") : 0L;
-            }
-        }
+        return members.get(uuid).map(MemberRecord::serfTaxDiscountUntil).orElse(0L);
     }
 
     public void setSerfTaxDiscountUntil(UUID uuid, long until) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE members SET serf_tax_discount_until = ? WHERE uuid = ?")) {
-            ps.setLong(1, until);
-            ps.setString(2, uuid.toString());
-            ps.executeUpdate();
-        }
+        members.update(uuid, r -> r.withSerfTaxDiscountUntil(until), conn -> {
+            try (StatementCache.Stmt ps = conn.prepare(
+                    "UPDATE members SET serf_tax_discount_until = ? WHERE uuid = ?")) {
+                ps.setLong(1, until);
+                ps.setString(2, uuid.toString());
+                ps.executeUpdate();
+            }
+        });
     }
 
     public long getSerfLastWarnAt(UUID uuid) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT serf_last_warn_at FROM members WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getLong("serf_last_warn_at") : 0L;
-            }
-        }
+        return members.get(uuid).map(MemberRecord::serfLastWarnAt).orElse(0L);
     }
 
     public void setSerfLastWarnAt(UUID uuid, long at) throws SQLException {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE members SET serf_last_warn_at = ? WHERE uuid = ?")) {
-            ps.setLong(1, at);
-            ps.setString(2, uuid.toString());
-            ps.executeUpdate();
-        }
+        members.update(uuid, r -> r.withSerfLastWarnAt(at), conn -> {
+            try (StatementCache.Stmt ps = conn.prepare(
+                    "UPDATE members SET serf_last_warn_at = ? WHERE uuid = ?")) {
+                ps.setLong(1, at);
+                ps.setString(2, uuid.toString());
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    // ----------------------------
+    // Async (루프/리스너용: 결과는 DbExecutor.whenDone 으로 메인 스레드에서 받기)
+    // ----------------------------
+
+    public CompletableFuture<Optional<Integer>> getFamilyIdOfAsync(UUID uuid) {
+        return db.async(conn -> getFamilyIdOf(uuid));
+    }
+
+    public CompletableFuture<List<UUID>> getMembersOfFamilyAsync(int familyId) {
+        return db.async(conn -> getMembersOfFamily(familyId));
+    }
+
+    public CompletableFuture<Optional<FamilyLand>> getFamilyLandAsync(int familyId) {
+        return CompletableFuture.completedFuture(lands.get(familyId));
+    }
+
+    public CompletableFuture<Optional<Integer>> getNpcFamilyIdAsync(int npcId) {
+        NpcMember m = npcMembers.get(npcId);
+        return CompletableFuture.completedFuture(m == null ? Optional.empty() : Optional.ofNullable(m.familyId()));
+    }
+
+    public CompletableFuture<Boolean> isNpcSerfAsync(int npcId) {
+        NpcMember m = npcMembers.get(npcId);
+        return CompletableFuture.completedFuture(m != null && m.serf());
     }
 }
\ No newline at end of file
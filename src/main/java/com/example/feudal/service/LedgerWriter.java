@@ -0,0 +1,184 @@
+package com.example.feudal.service;
+
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * tax_ledger 전용 그룹 커밋 writer (추가만 함).
+ * - append 는 큐에만 넣고 리턴, batch-size 가 차거나 flush-interval 마다 DB 스레드에서 배치 INSERT 한 트랜잭션
+ * - 큐가 꽉 차면 호출한 쪽이 backpressure-wait-ms 까지만 기다리고, 그래도 꽉 차 있으면 경고 후 DB 스레드 쪽 목록으로 넘김
+ *   DB 스레드에서 부르면 기다리지 않고 바로 넘김 (바깥 트랜잭션 안에서 flush 하면 같이 롤백될 수 있으므로)
+ * - close() 에서 남은 항목을 모두 쓴다 (onDisable 에서 DB 닫기 전에 호출)
+ */
+public class LedgerWriter {
+
+    public record Entry(int familyId, int npcId, int amount, String reason, long createdAtMs) {}
+
+    public record Stats(int queued, int capacity, long written, long flushes, long blocked,
+                        double lastFlushMs, double avgFlushMs, double maxFlushMs) {}
+
+    private final JavaPlugin plugin;
+    private final DbExecutor db;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long backpressureWaitMs;
+    private final BlockingQueue<Entry> queue;
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private volatile boolean closed;
+    private BukkitTask timer;
+
+    // DB 스레드 전용: INSERT 실패한 배치 + 큐가 꽉 차서 넘어온 항목 (다음 flush 때 먼저 씀)
+    private final List<Entry> retry = new ArrayList<>();
+
+    // ---- 통계 ----
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public LedgerWriter(JavaPlugin plugin, DbExecutor db) {
+        this.plugin = plugin;
+        this.db = db;
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("ledger.batch-size", 200));
+        this.flushIntervalMs = Math.max(50L, plugin.getConfig().getLong("ledger.flush-interval-ms", 1000L));
+        this.backpressureWaitMs = Math.max(0L, plugin.getConfig().getLong("ledger.backpressure-wait-ms", 50L));
+        this.queue = new ArrayBlockingQueue<>(Math.max(batchSize, plugin.getConfig().getInt("ledger.queue-capacity", 10_000)));
+    }
+
+    public void start() {
+        long ticks = Math.max(1L, flushIntervalMs / 50L);
+        timer = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::requestFlush, ticks, ticks);
+    }
+
+    // --------------------
+    // 기록
+    // --------------------
+    public void append(Entry e) throws SQLException {
+        if (closed) {
+            // 종료 후에 들어온 건 바로 쓴다
+            db.run(conn -> insert(conn, List.of(e)));
+            return;
+        }
+        if (queue.offer(e)) {
+            if (queue.size() >= batchSize) requestFlush();
+            return;
+        }
+
+        blocked.increment();
+        if (db.isDbThread()) {
+            // 바깥 트랜잭션(settleFamily 등) 안일 수 있음 -> 여기서 쓰지 않고 다음 flush 로 (그 트랜잭션 커밋 뒤에 돎)
+            retry.add(e);
+            requestFlush();
+            return;
+        }
+
+        requestFlush();
+        try {
+            if (queue.offer(e, backpressureWaitMs, TimeUnit.MILLISECONDS)) return;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        plugin.getLogger().warning("[Ledger] 큐가 " + backpressureWaitMs + "ms 넘게 꽉 참, DB 스레드로 넘겨서 기록");
+        // writer 작업 하나로 따로 돌므로 자기 트랜잭션에서 flush
+        db.asyncRun(c -> {
+            retry.add(e);
+            flush(c);
+        }).exceptionally(err -> {
+            plugin.getLogger().warning("[Ledger] flush 실패: " + err.getMessage());
+            return null;
+        });
+    }
+
+    /** 타이머 중지 후 큐를 끝까지 비운다 */
+    public void close() {
+        closed = true;
+        if (timer != null) timer.cancel();
+        try {
+            db.run(this::flush);
+        } catch (SQLException e) {
+            plugin.getLogger().severe("[Ledger] 종료 중 기록 실패, 유실: " + (queue.size() + retry.size()) + "건 / " + e.getMessage());
+        }
+    }
+
+    public Stats stats() {
+        long n = flushes.sum();
+        return new Stats(queue.size(), queue.size() + queue.remainingCapacity(), written.sum(), n, blocked.sum(),
+                lastFlushNanos.get() / 1_000_000.0,
+                n == 0 ? 0 : flushNanos.sum() / 1_000_000.0 / n,
+                maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private void requestFlush() {
+        if (queue.isEmpty() || !flushQueued.compareAndSet(false, true)) return;
+        db.asyncRun(this::flush).exceptionally(err -> {
+            plugin.getLogger().warning("[Ledger] flush 실패: " + err.getMessage());
+            return null;
+        });
+    }
+
+    /** DB 스레드에서만 실행 */
+    private void flush(StatementCache conn) throws SQLException {
+        flushQueued.set(false);
+
+        List<Entry> batch = new ArrayList<>(batchSize);
+        batch.addAll(retry);
+        retry.clear();
+
+        while (!batch.isEmpty() || queue.drainTo(batch, batchSize) > 0) {
+            long start = System.nanoTime();
+            try {
+                db.tx(c -> {
+                    insert(c, batch);
+                    return null;
+                });
+            } catch (SQLException e) {
+                retry.addAll(batch);
+                throw e;
+            }
+            long took = System.nanoTime() - start;
+
+            written.add(batch.size());
+            flushes.increment();
+            flushNanos.add(took);
+            lastFlushNanos.set(took);
+            maxFlushNanos.accumulateAndGet(took, Math::max);
+            batch.clear();
+        }
+    }
+
+    private static void insert(StatementCache conn, List<Entry> entries) throws SQLException {
+        try (StatementCache.Stmt ps = conn.prepare("""
+            INSERT INTO tax_ledger(family_id, npc_id, amount, reason, created_at)
+            VALUES(?, ?, ?, ?, ?)
+        """)) {
+            for (Entry e : entries) {
+                ps.setInt(1, e.familyId());
+                ps.setInt(2, e.npcId());
+                ps.setInt(3, e.amount());
+                ps.setString(4, e.reason());
+                ps.setLong(5, e.createdAtMs());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
\ No newline at end of file
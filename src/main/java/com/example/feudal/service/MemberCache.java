@@ -0,0 +1,167 @@
+package com.example.feudal.service;
+
+import com.example.feudal.model.Job;
+import com.example.feudal.model.MemberRecord;
+import com.example.feudal.model.Rank;
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 접속 중인 플레이어의 members 행 캐시 (write-behind).
+ * - 접속 시 한 번에 전체 컬럼 로드, 퇴장 시 제거
+ * - 쓰기: 캐시는 즉시 반영, DB는 writer 큐에 넣고 바로 리턴. DB 쓰기가 실패하면 캐시를 버리고 DB 값으로 다시 읽음
+ * - 캐시에 없는 UUID(오프라인)는 한 번의 SELECT 로 읽고 상주시키지 않음
+ */
+public class MemberCache {
+
+    // members 에 행이 없는 플레이어 표시용
+    private static final MemberRecord MISSING =
+            new MemberRecord(new UUID(0L, 0L), null, Rank.PEASANT, Job.NONE, false, 0, 0, 0L, 0L, 0L);
+
+    private final DbExecutor db;
+    private final Map<UUID, MemberRecord> cache = new ConcurrentHashMap<>();
+    private final Set<UUID> online = ConcurrentHashMap.newKeySet();
+
+    public MemberCache(DbExecutor db) {
+        this.db = db;
+    }
+
+    // --------------------
+    // 조회
+    // --------------------
+
+    /**
+     * 캐시에 없으면 writer 큐에서 동기로 읽는다 -> 호출 스레드(대개 메인)가 밀린 DB 작업만큼 기다림.
+     * 접속 중인 플레이어는 접속 때 load 로 올라와 있으므로 보통 오프라인 대상 명령에서만 일어남.
+     */
+    public Optional<MemberRecord> get(UUID uuid) throws SQLException {
+        MemberRecord r = cache.get(uuid);
+        if (r == null) {
+            // write-behind 로 밀려있는 쓰기보다 뒤에서 읽도록 writer 큐에서 로드
+            r = db.call(conn -> select(conn, uuid));
+        }
+        return r == MISSING ? Optional.empty() : Optional.of(r);
+    }
+
+    /** 캐시에 있는 것만 (DB 안 감). 아직 로드 전이거나 members 행이 없으면 null */
+    public MemberRecord peek(UUID uuid) {
+        MemberRecord r = cache.get(uuid);
+        return r == MISSING ? null : r;
+    }
+
+    public boolean isCached(UUID uuid) {
+        return cache.containsKey(uuid);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    // --------------------
+    // 접속/퇴장
+    // --------------------
+    public CompletableFuture<Void> load(UUID uuid) {
+        online.add(uuid);
+        return db.asyncRun(conn -> {
+            MemberRecord r = select(conn, uuid);
+            cache.put(uuid, r);
+            // 로드 도중에 나간 경우 다시 빼기
+            if (!online.contains(uuid)) cache.remove(uuid);
+        });
+    }
+
+    public void evict(UUID uuid) {
+        online.remove(uuid);
+        cache.remove(uuid);
+    }
+
+    // --------------------
+    // 쓰기
+    // --------------------
+
+    /** 행이 있을 때만 바뀌는 UPDATE 용 */
+    void update(UUID uuid, UnaryOperator<MemberRecord> change, DbExecutor.SqlRun sql) {
+        write(uuid, r -> r == MISSING ? r : change.apply(r), sql);
+    }
+
+    /** INSERT ... ON CONFLICT 용 (행이 없으면 created 로) */
+    void upsert(UUID uuid, MemberRecord created, UnaryOperator<MemberRecord> change, DbExecutor.SqlRun sql) {
+        write(uuid, r -> r == MISSING ? created : change.apply(r), sql);
+    }
+
+    private void write(UUID uuid, UnaryOperator<MemberRecord> change, DbExecutor.SqlRun sql) {
+        boolean applied = cache.computeIfPresent(uuid, (k, r) -> change.apply(r)) != null;
+
+        db.asyncRun(conn -> {
+            sql.run(conn);
+            // 로드가 이 쓰기보다 먼저 큐에 있었으면 캐시에 옛 값이 올라가 있음 -> 여기서 반영
+            if (!applied) cache.computeIfPresent(uuid, (k, r) -> change.apply(r));
+        }).exceptionally(err -> {
+            db.logger().warning("[MemberCache] 쓰기 실패(" + uuid + "), DB 값으로 다시 읽음: " + err.getMessage());
+            reload(uuid);
+            return null;
+        });
+    }
+
+    /** 캐시에 먼저 반영한 값이 DB 에 못 들어간 경우: 버리고 (접속 중이면) DB 에서 다시 적재 */
+    private void reload(UUID uuid) {
+        cache.remove(uuid);
+        if (!online.contains(uuid)) return;
+
+        // writer 큐 뒤에 서므로 그 사이 쓰기는 이미 반영된 행을 읽음
+        db.asyncRun(conn -> {
+            MemberRecord r = select(conn, uuid);
+            cache.put(uuid, r);
+            if (!online.contains(uuid)) cache.remove(uuid);
+        }).exceptionally(err -> null); // 실패해도 조회 시 DB에서 다시 읽음
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private static MemberRecord select(StatementCache conn, UUID uuid) throws SQLException {
+        try (StatementCache.Stmt ps = conn.prepare("""
+            SELECT family_id, rank, job, is_serf,
+                   serf_miss_count, serf_deliver_points, serf_next_due_at,
+                   serf_tax_discount_until, serf_last_warn_at
+            FROM members
+            WHERE uuid = ?
+        """)) {
+            ps.setString(1, uuid.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return MISSING;
+
+                int fid = rs.getInt("family_id");
+                Integer familyId = rs.wasNull() ? null : fid;
+
+                Rank rank;
+                try { rank = Rank.valueOf(rs.getString("rank")); } catch (Exception ignored) { rank = Rank.PEASANT; }
+                Job job;
+                try { job = Job.valueOf(rs.getString("job")); } catch (Exception ignored) { job = Job.NONE; }
+
+                return new MemberRecord(
+                        uuid,
+                        familyId,
+                        rank,
+                        job,
+                        rs.getInt("is_serf") == 1,
+                        rs.getInt("serf_miss_count"),
+                        rs.getInt("serf_deliver_points"),
+                        rs.getLong("serf_next_due_at"),
+                        rs.getLong("serf_tax_discount_until"),
+                        rs.getLong("serf_last_warn_at")
+                );
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.feudal.service;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.UUID;
+
+/** 접속 시 members 캐시 적재, 퇴장 시 제거 */
+public class MemberCacheListener implements Listener {
+    private final MemberCache cache;
+
+    public MemberCacheListener(MemberCache cache) {
+        this.cache = cache;
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent e) {
+        UUID uuid = e.getPlayer().getUniqueId();
+        cache.load(uuid).exceptionally(err -> null); // 실패해도 조회 시 DB에서 다시 읽음
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        cache.evict(e.getPlayer().getUniqueId());
+    }
+}
\ No newline at end of file
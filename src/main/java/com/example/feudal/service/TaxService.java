@@ -2,14 +2,20 @@ package com.example.feudal.service;
 
 import com.example.feudal.model.Job;
 import com.example.feudal.storage.Database;
+import com.example.feudal.storage.DbExecutor;
+import com.example.feudal.storage.StatementCache;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class TaxService {
-    private final Database db;
+    private final DbExecutor db;
+    private final LedgerWriter ledger;
+    private final FamilyBank bank;
 
     public static final long SERF_DUE_INTERVAL_MS = 10 * 60 * 1000L;
 
@@ -20,128 +26,205 @@ public class TaxService {
     public static final int SERF_DUE_REDUCE_PER_REWARD = 10;
     public static final long SERF_DISCOUNT_DURATION_MS = 10 * 60 * 1000L;
 
-    public TaxService(Database db) {
-        this.db = db;
+    public TaxService(Database db, LedgerWriter ledger) {
+        this.db = db.executor();
+        this.ledger = ledger;
+        this.bank = new FamilyBank(this.db, ledger);
     }
 
-    // --------------------
-    // bank
-    // --------------------
-    public void ensureBankRow(int familyId) throws SQLException {
-        try (PreparedStatement ps = db.conn().prepareStatement("""
-            INSERT INTO family_bank(family_id, balance)
-            VALUES(?, 0)
-            ON CONFLICT(family_id) DO NOTHING
-        """)) {
-            ps.setInt(1, familyId);
-            ps.executeUpdate();
-        }
+    public DbExecutor executor() {
+        return db;
     }
 
-    public void addToBank(int familyId, int amount) throws SQLException {
-        ensureBankRow(familyId);
-        try (PreparedStatement ps = db.conn().prepareStatement("""
-            UPDATE family_bank
-            SET balance = balance + ?
-            WHERE family_id = ?
-        """)) {
-            ps.setInt(1, amount);
-            ps.setInt(2, familyId);
-            ps.executeUpdate();
-        }
+    public LedgerWriter ledger() {
+        return ledger;
     }
 
-    public int getBankBalance(int familyId) throws SQLException {
-        ensureBankRow(familyId);
-        try (PreparedStatement ps = db.conn().prepareStatement("""
-            SELECT balance FROM family_bank WHERE family_id = ?
-        """)) {
-            ps.setInt(1, familyId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt("balance") : 0;
-            }
-        }
+    public FamilyBank bank() {
+        return bank;
     }
 
-    public boolean withdrawFromBank(int familyId, int amount) throws SQLException {
-        if (amount <= 0) return false;
-        ensureBankRow(familyId);
+    // --------------------
+    // bank (FamilyBank 메모리 잔액)
+    // --------------------
+    public void addToBank(int familyId, int amount) throws SQLException {
+        bank.deposit(familyId, amount, 0, "DEPOSIT");
+    }
 
-        int bal = getBankBalance(familyId);
-        if (bal < amount) return false;
+    public long getBankBalance(int familyId) throws SQLException {
+        return bank.balance(familyId);
+    }
 
-        try (PreparedStatement ps = db.conn().prepareStatement("""
-            UPDATE family_bank
-            SET balance = balance - ?
-            WHERE family_id = ?
-        """)) {
-            ps.setInt(1, amount);
-            ps.setInt(2, familyId);
-            ps.executeUpdate();
-            return true;
-        }
+    public boolean withdrawFromBank(int familyId, int amount, String reason) throws SQLException {
+        return bank.withdraw(familyId, amount, reason);
     }
 
+    /** 장부는 LedgerWriter 큐로 (배치로 모아서 씀) */
     public void recordLedger(int familyId, int npcId, int amount, String reason, long createdAtMs) throws SQLException {
-        try (PreparedStatement ps = db.conn().prepareStatement("""
-            INSERT INTO tax_ledger(family_id, npc_id, amount, reason, created_at)
-            VALUES(?, ?, ?, ?, ?)
-        """)) {
-            ps.setInt(1, familyId);
-            ps.setInt(2, npcId);
-            ps.setInt(3, amount);
-            ps.setString(4, reason);
-            ps.setLong(5, createdAtMs);
-            ps.executeUpdate();
-        }
+        ledger.append(new LedgerWriter.Entry(familyId, npcId, amount, reason, createdAtMs));
     }
 
     // --------------------
     // due
     // --------------------
     public void addDue(String uuid, int amount) throws SQLException {
-        int safe = Math.max(0, amount);
-        try (PreparedStatement ps = db.conn().prepareStatement("""
-            INSERT INTO tax_due(uuid, due)
-            VALUES(?, ?)
-            ON CONFLICT(uuid) DO UPDATE SET due = due + excluded.due
-        """)) {
-            ps.setString(1, uuid);
-            ps.setInt(2, safe);
-            ps.executeUpdate();
-        }
+        db.run(conn -> {
+            int safe = Math.max(0, amount);
+            try (StatementCache.Stmt ps = conn.prepare("""
+                INSERT INTO tax_due(uuid, due)
+                VALUES(?, ?)
+                ON CONFLICT(uuid) DO UPDATE SET due = due + excluded.due
+            """)) {
+                ps.setString(1, uuid);
+                ps.setInt(2, safe);
+                ps.executeUpdate();
+            }
+        });
     }
 
     public int getDue(String uuid) throws SQLException {
-        try (PreparedStatement ps = db.conn().prepareStatement("""
+        return db.read(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("""
+                SELECT due FROM tax_due WHERE uuid = ?
+            """)) {
+                ps.setString(1, uuid);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt("due") : 0;
+                }
+            }
+        });
+    }
+
+    public void setDue(String uuid, int due) throws SQLException {
+        db.run(conn -> {
+            int safe = Math.max(0, due);
+            try (StatementCache.Stmt ps = conn.prepare("""
+                INSERT INTO tax_due(uuid, due)
+                VALUES(?, ?)
+                ON CONFLICT(uuid) DO UPDATE SET due = excluded.due
+            """)) {
+                ps.setString(1, uuid);
+                ps.setInt(2, safe);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    public void reduceDue(String uuid, int paidAmount) throws SQLException {
+        db.run(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("""
+                UPDATE tax_due SET due = MAX(0, due - ?) WHERE uuid = ?
+            """)) {
+                ps.setInt(1, Math.max(0, paidAmount));
+                ps.setString(2, uuid);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    // --------------------
+    // 징수원 (가문 단위 일괄 처리)
+    // --------------------
+
+    /** 가문 구성원 전원에게 amount 청구 (집합 upsert 1회) 후 구성원별 미납액 */
+    public Map<UUID, Integer> billFamily(int familyId, int amount) throws SQLException {
+        return db.tx(conn -> {
+            try (StatementCache.Stmt ps = conn.prepare("""
+                INSERT INTO tax_due(uuid, due)
+                SELECT uuid, ? FROM members WHERE family_id = ?
+                ON CONFLICT(uuid) DO UPDATE SET due = due + excluded.due
+            """)) {
+                ps.setInt(1, Math.max(0, amount));
+                ps.setInt(2, familyId);
+                ps.executeUpdate();
+            }
+
+            Map<UUID, Integer> dues = new LinkedHashMap<>();
+            try (StatementCache.Stmt ps = conn.prepare("""
+                SELECT m.uuid, d.due
+                FROM members m
+                JOIN tax_due d ON d.uuid = m.uuid
+                WHERE m.family_id = ?
+            """)) {
+                ps.setInt(1, familyId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) dues.put(UUID.fromString(rs.getString("uuid")), rs.getInt("due"));
+                }
+            }
+            return dues;
+        });
+    }
+
+    /**
+     * 징수 결과: applied = 실제 미납에서 차감된 양, excess = 돌려줘야 할 양, left = 차감 후 남은 미납.
+     * (청구와 반영 사이에 다른 징수/감면이 끼면 걷은 양이 지금 미납보다 많을 수 있음)
+     */
+    public record Settlement(Map<UUID, Integer> applied, Map<UUID, Integer> excess, Map<UUID, Integer> left) {}
+
+    /**
+     * 징수 결과 반영: 지금 DB 의 미납 기준으로 min(걷은 양, 미납) 만 차감 + 금고 입금(합계 1회) 한 트랜잭션.
+     * 청구(billFamily)와는 별도 트랜잭션이라 (에메랄드 회수는 메인 스레드) 청구 때 본 미납은 믿지 않는다.
+     * 커밋되면 차감된 만큼만 메모리 잔액/장부에 반영.
+     */
+    public Settlement settleFamily(int familyId, int npcId, Map<UUID, Integer> paid, String reason, long nowMs) throws SQLException {
+        // 메모리 잔액 반영(credit)이 금고 첫 로드와 섞이지 않도록 writer 작업 하나 안에서 커밋까지
+        Settlement s = db.call(conn -> {
+            Settlement r = db.tx(c -> {
+                Map<UUID, Integer> applied = new LinkedHashMap<>();
+                Map<UUID, Integer> excess = new LinkedHashMap<>();
+                Map<UUID, Integer> left = new LinkedHashMap<>();
+                long sum = 0;
+                for (var e : paid.entrySet()) {
+                    int amount = e.getValue();
+                    if (amount <= 0) continue;
+
+                    int due = dueRow(c, e.getKey().toString());
+                    int take = Math.min(amount, due);
+                    if (take > 0) {
+                        subtractDueRow(c, e.getKey().toString(), take);
+                        applied.put(e.getKey(), take);
+                        sum += take;
+                    }
+                    if (amount > take) excess.put(e.getKey(), amount - take);
+                    left.put(e.getKey(), due - take);
+                }
+                if (sum > 0) bank.depositRow(c, familyId, sum);
+                return new Settlement(applied, excess, left);
+            });
+            long total = 0;
+            for (int v : r.applied().values()) total += v;
+            bank.credit(familyId, total);
+            return r;
+        });
+
+        // 롤백된 징수가 장부에 남지 않도록 커밋 뒤에 넣음
+        for (int amount : s.applied().values()) {
+            recordLedger(familyId, npcId, amount, reason, nowMs);
+        }
+        return s;
+    }
+
+    private static int dueRow(StatementCache conn, String uuid) throws SQLException {
+        try (StatementCache.Stmt ps = conn.prepare("""
             SELECT due FROM tax_due WHERE uuid = ?
         """)) {
             ps.setString(1, uuid);
             try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt("due") : 0;
+                return rs.next() ? Math.max(0, rs.getInt("due")) : 0;
             }
         }
     }
 
-    public void setDue(String uuid, int due) throws SQLException {
-        int safe = Math.max(0, due);
-        try (PreparedStatement ps = db.conn().prepareStatement("""
-            INSERT INTO tax_due(uuid, due)
-            VALUES(?, ?)
-            ON CONFLICT(uuid) DO UPDATE SET due = excluded.due
+    private static void subtractDueRow(StatementCache conn, String uuid, int amount) throws SQLException {
+        try (StatementCache.Stmt ps = conn.prepare("""
+            UPDATE tax_due SET due = due - ? WHERE uuid = ?
         """)) {
-            ps.setString(1, uuid);
-            ps.setInt(2, safe);
+            ps.setInt(1, amount);
+            ps.setString(2, uuid);
             ps.executeUpdate();
         }
     }
 
-    public void reduceDue(String uuid, int paidAmount) throws SQLException {
-        int cur = getDue(uuid);
-        int next = Math.max(0, cur - Math.max(0, paidAmount));
-        setDue(uuid, next);
-    }
-
     /** 농노 기본 세금(직업별) */
     public int computeBaseSerfTax(Job job) {
         return switch (job) {
@@ -153,63 +236,91 @@ public class TaxService {
     }
 
     public int tickSerfDueIfNeeded(FeudalService service, UUID uuid, long nowMs) throws SQLException {
-        if (!service.isSerf(uuid)) return 0;
-
-        long nextDue = service.getSerfNextDueAt(uuid);
-        if (nextDue == 0) {
-            service.setSerfNextDueAt(uuid, nowMs + SERF_DUE_INTERVAL_MS);
-            return 0;
-        }
+        return db.call(conn -> {
+            if (!service.isSerf(uuid)) return 0;
 
-        if (nowMs < nextDue) return 0;
+            long nextDue = service.getSerfNextDueAt(uuid);
+            if (nextDue == 0) {
+                service.setSerfNextDueAt(uuid, nowMs + SERF_DUE_INTERVAL_MS);
+                return 0;
+            }
 
-        int curDue = getDue(uuid.toString());
-        if (curDue > 0) service.addSerfMissCount(uuid, 1);
+            if (nowMs < nextDue) return 0;
 
-        int miss = service.getSerfMissCount(uuid);
-        Job job = service.getJob(uuid);
+            int curDue = getDue(uuid.toString());
+            int miss = service.getSerfMissCount(uuid);
+            if (curDue > 0) {
+                // 쓰기는 write-behind 라 다시 읽지 않고 여기서 계산
+                service.addSerfMissCount(uuid, 1);
+                miss++;
+            }
+            Job job = service.getJob(uuid);
 
-        int tax = computeBaseSerfTax(job);
+            int tax = computeBaseSerfTax(job);
 
-        if (miss >= SERF_PUNISH_THRESHOLD) tax *= 2;
+            if (miss >= SERF_PUNISH_THRESHOLD) tax *= 2;
 
-        long discUntil = service.getSerfTaxDiscountUntil(uuid);
-        if (discUntil > nowMs) tax = Math.max(1, tax / 2);
+            long discUntil = service.getSerfTaxDiscountUntil(uuid);
+            if (discUntil > nowMs) tax = Math.max(1, tax / 2);
 
-        addDue(uuid.toString(), tax);
+            addDue(uuid.toString(), tax);
 
-        service.setSerfNextDueAt(uuid, nowMs + SERF_DUE_INTERVAL_MS);
+            service.setSerfNextDueAt(uuid, nowMs + SERF_DUE_INTERVAL_MS);
 
-        return tax;
+            return tax;
+        });
     }
 
     public int addSerfDeliverAndApplyRewards(FeudalService service, UUID uuid, int addPoints, long nowMs) throws SQLException {
-        if (addPoints <= 0) return 0;
+        return db.call(conn -> {
+            if (addPoints <= 0) return 0;
 
-        int before = service.getSerfDeliverPoints(uuid);
-        int after = before + addPoints;
-        service.setSerfDeliverPoints(uuid, after);
+            int before = service.getSerfDeliverPoints(uuid);
+            int after = before + addPoints;
+            service.setSerfDeliverPoints(uuid, after);
 
-        int rewards = after / SERF_POINTS_PER_REWARD;
-        if (rewards <= 0) return 0;
+            int rewards = after / SERF_POINTS_PER_REWARD;
+            if (rewards <= 0) return 0;
 
-        int remain = after % SERF_POINTS_PER_REWARD;
-        service.setSerfDeliverPoints(uuid, remain);
+            int remain = after % SERF_POINTS_PER_REWARD;
+            service.setSerfDeliverPoints(uuid, remain);
 
-        int reduce = rewards * SERF_DUE_REDUCE_PER_REWARD;
-        reduceDue(uuid.toString(), reduce);
+            int reduce = rewards * SERF_DUE_REDUCE_PER_REWARD;
+            reduceDue(uuid.toString(), reduce);
 
-        long curUntil = service.getSerfTaxDiscountUntil(uuid);
-        long base = Math.max(curUntil, nowMs);
-        service.setSerfTaxDiscountUntil(uuid, base + rewards * SERF_DISCOUNT_DURATION_MS);
+            long curUntil = service.getSerfTaxDiscountUntil(uuid);
+            long base = Math.max(curUntil, nowMs);
+            service.setSerfTaxDiscountUntil(uuid, base + rewards * SERF_DISCOUNT_DURATION_MS);
 
-        return rewards;
+            return rewards;
+        });
     }
 
     public boolean canWarnSerf(FeudalService service, UUID uuid, long nowMs) throws SQLException {
-        long last = service.getSerfLastWarnAt(uuid);
-        if (nowMs - last < SERF_WARN_COOLDOWN_MS) return false;
-        service.setSerfLastWarnAt(uuid, nowMs);
-        return true;
+        return db.call(conn -> {
+            long last = service.getSerfLastWarnAt(uuid);
+            if (nowMs - last < SERF_WARN_COOLDOWN_MS) return false;
+            service.setSerfLastWarnAt(uuid, nowMs);
+            return true;
+        });
+    }
+
+    // --------------------
+    // async
+    // --------------------
+    public CompletableFuture<Long> getBankBalanceAsync(int familyId) {
+        return db.async(conn -> getBankBalance(familyId));
+    }
+
+    public CompletableFuture<Boolean> withdrawFromBankAsync(int familyId, int amount, String reason) {
+        return db.async(conn -> withdrawFromBank(familyId, amount, reason));
+    }
+
+    public CompletableFuture<Map<UUID, Integer>> billFamilyAsync(int familyId, int amount) {
+        return db.async(conn -> billFamily(familyId, amount));
+    }
+
+    public CompletableFuture<Settlement> settleFamilyAsync(int familyId, int npcId, Map<UUID, Integer> paid, String reason, long nowMs) {
+        return db.async(conn -> settleFamily(familyId, npcId, paid, reason, nowMs));
     }
 }
\ No newline at end of file
@@ -0,0 +1,384 @@
+package com.example.feudal.storage;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * DB 전용 실행기.
+ * 쓰기 커넥션은 "Feudal-DB" writer 스레드 하나만 만지고, 다른 스레드는 작업을 큐에 넣기만 한다.
+ * WAL 모드면 "Feudal-DB-Read-N" 읽기 풀이 각자 읽기 전용 커넥션을 들고 조회를 동시에 처리한다.
+ * - call/run : 동기 쓰기 API (결과가 나올 때까지 호출 스레드 대기)
+ * - async/asyncRun : CompletableFuture 비동기 쓰기 API
+ * - read : 조회 전용 (읽기 풀, 없으면 writer)
+ * - tx/asyncTx : writer 에서 한 트랜잭션으로 묶어 실행
+ * - whenDone : 결과를 Bukkit 메인 스레드로 돌려받기
+ * 작업에는 커넥션 대신 그 커넥션의 StatementCache 가 넘어간다.
+ */
+public class DbExecutor {
+
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call(StatementCache conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface SqlRun {
+        void run(StatementCache conn) throws SQLException;
+    }
+
+    public record Stats(long calls, long reads, int pending,
+                        double avgQueuedMs, double avgExecMs,
+                        double maxQueuedMs, double maxExecMs) {}
+
+    private static final long SLOW_CALL_NS = 50_000_000L; // 50ms 넘으면 경고
+    private static final long SHUTDOWN_WAIT_MS = 10_000L;
+
+    private final JavaPlugin plugin;
+    private final ExecutorService writer;
+    private volatile Thread writerThread;
+
+    // writer 스레드 전용
+    private Connection conn;
+    private StatementCache stmts;
+
+    // ---- 읽기 풀 (open 에서 생성, 커넥션은 각 스레드가 처음 작업할 때 연다) ----
+    private ExecutorService readers;
+    private String url;
+    private DbSettings settings;
+    private final ThreadLocal<StatementCache> readerSession = new ThreadLocal<>();
+    private final List<StatementCache> readerSessions = new CopyOnWriteArrayList<>();
+
+    // ---- 통계 ----
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder queuedNanos = new LongAdder();
+    private final LongAdder execNanos = new LongAdder();
+    private final AtomicLong maxQueuedNanos = new AtomicLong();
+    private final AtomicLong maxExecNanos = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public DbExecutor(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "Feudal-DB");
+            t.setDaemon(true);
+            writerThread = t;
+            return t;
+        });
+    }
+
+    /**
+     * writer 스레드에서 쓰기 커넥션을 연다 (이후 커넥션은 그 스레드 소유).
+     * 실제 적용된 journal_mode 를 돌려준다. WAL 이 아니면 읽기 풀은 만들지 않음.
+     */
+    public String open(String url, DbSettings settings) throws SQLException {
+        this.url = url;
+        this.settings = settings;
+
+        String mode = await(submit(ignored -> {
+            conn = DriverManager.getConnection(url);
+            String m = settings.applyWriter(conn);
+            stmts = new StatementCache(conn);
+            return m;
+        }));
+
+        if (mode.equals("WAL") && settings.readPoolSize() > 0) {
+            AtomicInteger seq = new AtomicInteger();
+            readers = Executors.newFixedThreadPool(settings.readPoolSize(), r -> {
+                Thread t = new Thread(r, "Feudal-DB-Read-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return mode;
+    }
+
+    public int readPoolSize() {
+        return readers == null ? 0 : settings.readPoolSize();
+    }
+
+    public boolean isDbThread() {
+        return Thread.currentThread() == writerThread;
+    }
+
+    Connection connection() {
+        return conn;
+    }
+
+    public Logger logger() {
+        return plugin.getLogger();
+    }
+
+    // --------------------
+    // 동기 API
+    // --------------------
+    public <T> T call(SqlCall<T> call) throws SQLException {
+        // 이미 DB 스레드면 바로 실행 (큐에 넣고 기다리면 데드락)
+        if (isDbThread()) {
+            long start = System.nanoTime();
+            try {
+                return call.call(stmts);
+            } finally {
+                record(0L, System.nanoTime() - start);
+            }
+        }
+        return await(submit(call));
+    }
+
+    public void run(SqlRun run) throws SQLException {
+        call(c -> {
+            run.run(c);
+            return null;
+        });
+    }
+
+    // --------------------
+    // 트랜잭션 API
+    // --------------------
+
+    /** 안에서 부르는 call/run 도 같은 트랜잭션에 들어감 (이미 트랜잭션 중이면 그대로 합류) */
+    public <T> T tx(SqlCall<T> call) throws SQLException {
+        return call(transactional(call));
+    }
+
+    public <T> CompletableFuture<T> asyncTx(SqlCall<T> call) {
+        return submit(transactional(call));
+    }
+
+    // --------------------
+    // 조회 API
+    // --------------------
+
+    /**
+     * 읽기 풀에서 조회. writer/읽기 스레드 안에서 부르면 그 커넥션에서 바로 실행
+     * (writer 안에서는 아직 안 끝난 자기 쓰기까지 보여야 하므로).
+     */
+    public <T> T read(SqlCall<T> call) throws SQLException {
+        if (isDbThread()) return call(call);
+        StatementCache own = readerSession.get();
+        if (own != null) return call.call(own);
+        if (readers == null) return call(call);
+        return await(submitRead(call));
+    }
+
+    // --------------------
+    // 비동기 API
+    // --------------------
+    public <T> CompletableFuture<T> async(SqlCall<T> call) {
+        return submit(call);
+    }
+
+    public CompletableFuture<Void> asyncRun(SqlRun run) {
+        return submit(c -> {
+            run.run(c);
+            return null;
+        });
+    }
+
+    /** 결과(또는 에러)를 메인 스레드에서 처리 */
+    public <T> void whenDone(CompletableFuture<T> future, Consumer<T> onOk, Consumer<Throwable> onError) {
+        future.whenComplete((v, err) -> runOnMain(() -> {
+            if (err != null) onError.accept(unwrap(err));
+            else onOk.accept(v);
+        }));
+    }
+
+    public void runOnMain(Runnable r) {
+        if (Bukkit.isPrimaryThread()) {
+            r.run();
+            return;
+        }
+        if (!plugin.isEnabled()) return; // 종료 중에는 스케줄 불가
+        Bukkit.getScheduler().runTask(plugin, r);
+    }
+
+    public Stats stats() {
+        long n = calls.sum();
+        double avgQ = n == 0 ? 0 : queuedNanos.sum() / 1_000_000.0 / n;
+        double avgE = n == 0 ? 0 : execNanos.sum() / 1_000_000.0 / n;
+        return new Stats(n, reads.sum(), pending.get(), avgQ, avgE,
+                maxQueuedNanos.get() / 1_000_000.0, maxExecNanos.get() / 1_000_000.0);
+    }
+
+    /** 캐시된 문장 수, prepare 횟수, 실행 횟수 (writer + 읽기 풀 합계) */
+    public StatementCache.Stats statementStats() {
+        int cached = 0;
+        long prepares = 0, executions = 0;
+        List<StatementCache> all = new ArrayList<>(readerSessions);
+        if (stmts != null) all.add(stmts);
+        for (StatementCache c : all) {
+            StatementCache.Stats s = c.stats();
+            cached += s.cached();
+            prepares += s.prepares();
+            executions += s.executions();
+        }
+        return new StatementCache.Stats(cached, prepares, executions);
+    }
+
+    /** 큐에 남은 작업을 모두 처리한 뒤 캐시된 문장과 커넥션을 닫는다 */
+    public void shutdown() {
+        if (readers != null) {
+            readers.shutdown();
+            try {
+                if (!readers.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) readers.shutdownNow();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                readers.shutdownNow();
+            }
+            // 읽기 스레드는 다 끝났으므로 여기서 닫아도 됨
+            for (StatementCache c : readerSessions) {
+                c.close();
+                try { c.connection().close(); } catch (Exception ignored) {}
+            }
+            readerSessions.clear();
+        }
+
+        try {
+            writer.execute(() -> {
+                if (stmts != null) stmts.close();
+                try { if (conn != null) conn.close(); } catch (Exception ignored) {}
+            });
+        } catch (RejectedExecutionException ignored) {}
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("[DB] 종료 대기 시간 초과, 남은 작업: " + pending.get());
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.shutdownNow();
+        }
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private <T> CompletableFuture<T> submit(SqlCall<T> call) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        pending.incrementAndGet();
+        try {
+            writer.execute(() -> {
+                pending.decrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    f.complete(call.call(stmts));
+                } catch (Throwable t) {
+                    f.completeExceptionally(t);
+                } finally {
+                    record(start - queuedAt, System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            f.completeExceptionally(new SQLException("DB 실행기가 종료됨", e));
+        }
+        return f;
+    }
+
+    private static <T> SqlCall<T> transactional(SqlCall<T> call) {
+        return c -> {
+            Connection raw = c.connection();
+            if (!raw.getAutoCommit()) return call.call(c);
+
+            raw.setAutoCommit(false);
+            try {
+                T v = call.call(c);
+                raw.commit();
+                return v;
+            } catch (SQLException | RuntimeException e) {
+                try { raw.rollback(); } catch (SQLException ignored) {}
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        };
+    }
+
+    private <T> CompletableFuture<T> submitRead(SqlCall<T> call) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            readers.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    f.complete(call.call(readerSession()));
+                } catch (Throwable t) {
+                    f.completeExceptionally(t);
+                } finally {
+                    reads.increment();
+                    record(start - queuedAt, System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            f.completeExceptionally(new SQLException("DB 실행기가 종료됨", e));
+        }
+        return f;
+    }
+
+    /** 읽기 스레드마다 커넥션 하나 (처음 쓸 때 연다) */
+    private StatementCache readerSession() throws SQLException {
+        StatementCache s = readerSession.get();
+        if (s != null) return s;
+
+        Connection c = DriverManager.getConnection(url);
+        try {
+            settings.applyReader(c);
+        } catch (SQLException e) {
+            try { c.close(); } catch (Exception ignored) {}
+            throw e;
+        }
+        s = new StatementCache(c);
+        readerSession.set(s);
+        readerSessions.add(s);
+        return s;
+    }
+
+    private void record(long queued, long exec) {
+        calls.increment();
+        queuedNanos.add(queued);
+        execNanos.add(exec);
+        maxQueuedNanos.accumulateAndGet(queued, Math::max);
+        maxExecNanos.accumulateAndGet(exec, Math::max);
+
+        if (queued >= SLOW_CALL_NS || exec >= SLOW_CALL_NS) {
+            plugin.getLogger().warning(String.format("[DB] 느린 호출: 대기=%.1fms 실행=%.1fms",
+                    queued / 1_000_000.0, exec / 1_000_000.0));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> f) throws SQLException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("DB 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof SQLException se) throw se;
+            if (c instanceof RuntimeException re) throw re;
+            throw new SQLException(c);
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+}
\ No newline at end of file
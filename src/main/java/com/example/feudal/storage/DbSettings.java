@@ -0,0 +1,96 @@
+package com.example.feudal.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Set;
+
+/** config.yml 의 database 섹션 (SQLite PRAGMA + 읽기 풀 크기) */
+public record DbSettings(
+        String journalMode,
+        String synchronous,
+        int cacheSizeKb,
+        int mmapSizeMb,
+        String tempStore,
+        int busyTimeoutMs,
+        int readPoolSize
+) {
+
+    private static final Set<String> JOURNAL_MODES = Set.of("WAL", "DELETE", "TRUNCATE", "PERSIST", "MEMORY", "OFF");
+    private static final Set<String> SYNC_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final Set<String> TEMP_STORES = Set.of("DEFAULT", "FILE", "MEMORY");
+
+    public static DbSettings defaults() {
+        return new DbSettings("WAL", "NORMAL", 8192, 64, "MEMORY", 5000, 2);
+    }
+
+    /** 잘못된 값은 기본값으로 (PRAGMA 에 그대로 들어가므로 허용 목록만) */
+    public static DbSettings from(ConfigurationSection sec) {
+        DbSettings d = defaults();
+        if (sec == null) return d;
+
+        return new DbSettings(
+                pick(sec.getString("journal-mode", d.journalMode), JOURNAL_MODES, d.journalMode),
+                pick(sec.getString("synchronous", d.synchronous), SYNC_MODES, d.synchronous),
+                Math.max(0, sec.getInt("cache-size-kb", d.cacheSizeKb)),
+                Math.max(0, sec.getInt("mmap-size-mb", d.mmapSizeMb)),
+                pick(sec.getString("temp-store", d.tempStore), TEMP_STORES, d.tempStore),
+                Math.max(0, sec.getInt("busy-timeout-ms", d.busyTimeoutMs)),
+                Math.max(0, Math.min(8, sec.getInt("read-pool-size", d.readPoolSize)))
+        );
+    }
+
+    /** writer 커넥션용. 실제 적용된 journal_mode 를 돌려줌 */
+    String applyWriter(Connection conn) throws SQLException {
+        String mode;
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA journal_mode=" + journalMode)) {
+            mode = rs.next() ? rs.getString(1).toUpperCase(Locale.ROOT) : "?";
+        }
+        applyCommon(conn);
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA synchronous=" + synchronous);
+        }
+        return mode;
+    }
+
+    /** 읽기 풀 커넥션용 (쓰기 금지) */
+    void applyReader(Connection conn) throws SQLException {
+        applyCommon(conn);
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA query_only=1");
+        }
+    }
+
+    public String describe() {
+        return "journal=" + journalMode
+                + ", synchronous=" + synchronous
+                + ", cache=" + cacheSizeKb + "KiB"
+                + ", mmap=" + mmapSizeMb + "MiB"
+                + ", temp_store=" + tempStore
+                + ", busy_timeout=" + busyTimeoutMs + "ms"
+                + ", 읽기 풀=" + readPoolSize;
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private void applyCommon(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA busy_timeout=" + busyTimeoutMs);
+            st.execute("PRAGMA cache_size=-" + cacheSizeKb); // 음수 = KiB 단위
+            st.execute("PRAGMA mmap_size=" + (long) mmapSizeMb * 1024 * 1024);
+            st.execute("PRAGMA temp_store=" + tempStore);
+        }
+    }
+
+    private static String pick(String v, Set<String> allowed, String def) {
+        if (v == null) return def;
+        String u = v.trim().toUpperCase(Locale.ROOT);
+        return allowed.contains(u) ? u : def;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,277 @@
+package com.example.feudal.storage;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * PRAGMA user_version 기반 스키마 마이그레이션.
+ * - 단계는 번호 순서대로, 각각 자기 트랜잭션 안에서 실행하고 같은 트랜잭션에서 user_version 을 올린다
+ * - 이미 최신이면 user_version 한 번 읽고 끝 (테이블 검사 없음)
+ * - 새 스키마 변경은 STEPS 맨 뒤에 다음 번호로 추가할 것 (기존 단계는 수정 금지)
+ */
+public final class SchemaMigrations {
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private record Migration(int version, String name, Step step) {}
+
+    private static final List<Migration> STEPS = List.of(
+            new Migration(1, "기본 테이블", SchemaMigrations::v1Tables),
+            new Migration(2, "보조 인덱스", SchemaMigrations::v2Indexes),
+            new Migration(3, "상인 상점", SchemaMigrations::v3Shops),
+            new Migration(4, "상점 재고", SchemaMigrations::v4Stock)
+    );
+
+    public static final int LATEST = STEPS.get(STEPS.size() - 1).version();
+
+    private SchemaMigrations() {}
+
+    public static void migrate(Connection conn, Logger log) throws SQLException {
+        int current = userVersion(conn);
+        if (current == LATEST) return;
+        if (current > LATEST) {
+            log.warning("[DB] 스키마 버전 " + current + " 이 플러그인이 아는 버전(" + LATEST + ")보다 높음. 마이그레이션 건너뜀");
+            return;
+        }
+
+        boolean auto = conn.getAutoCommit();
+        try {
+            for (Migration m : STEPS) {
+                if (m.version() <= current) continue;
+
+                conn.setAutoCommit(false);
+                try {
+                    m.step().apply(conn);
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("PRAGMA user_version = " + m.version());
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    try { conn.rollback(); } catch (SQLException ignored) {}
+                    throw new SQLException("스키마 v" + m.version() + "(" + m.name() + ") 실패: " + e.getMessage(), e);
+                }
+                log.info("[DB] 스키마 v" + m.version() + " 적용: " + m.name());
+                current = m.version();
+            }
+        } finally {
+            conn.setAutoCommit(auto);
+        }
+    }
+
+    private static int userVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // --------------------
+    // v1: 기본 테이블 (+ 옛 DB 컬럼 보정)
+    // --------------------
+    private static void v1Tables(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+
+            // --------------------
+            // 기본 테이블
+            // --------------------
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS families (
+                  id INTEGER PRIMARY KEY AUTOINCREMENT,
+                  name TEXT UNIQUE NOT NULL,
+                  lord_uuid TEXT NOT NULL
+                )
+            """);
+
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS members (
+                  uuid TEXT PRIMARY KEY,
+                  family_id INTEGER,
+                  rank TEXT NOT NULL,
+                  job TEXT NOT NULL DEFAULT 'NONE',
+                  is_serf INTEGER NOT NULL DEFAULT 0,
+
+                  -- ✅ 농노 12345 상태값들(플레이어용)
+                  serf_miss_count INTEGER NOT NULL DEFAULT 0,
+                  serf_deliver_points INTEGER NOT NULL DEFAULT 0,
+                  serf_next_due_at INTEGER NOT NULL DEFAULT 0,
+                  serf_tax_discount_until INTEGER NOT NULL DEFAULT 0,
+                  serf_last_warn_at INTEGER NOT NULL DEFAULT 0,
+
+                  FOREIGN KEY(family_id) REFERENCES families(id)
+                )
+            """);
+
+            // --------------------
+            // NPC 멤버(농노/직업/상태값)
+            // --------------------
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS npc_members (
+                  npc_id INTEGER PRIMARY KEY,
+                  family_id INTEGER,
+                  job TEXT NOT NULL DEFAULT 'NONE',
+                  is_serf INTEGER NOT NULL DEFAULT 0,
+
+                  serf_miss_count INTEGER NOT NULL DEFAULT 0,
+                  serf_deliver_points INTEGER NOT NULL DEFAULT 0,
+                  serf_next_due_at INTEGER NOT NULL DEFAULT 0,
+                  serf_tax_discount_until INTEGER NOT NULL DEFAULT 0,
+                  serf_last_warn_at INTEGER NOT NULL DEFAULT 0,
+
+                  FOREIGN KEY(family_id) REFERENCES families(id)
+                )
+            """);
+
+            // --------------------
+            // 가문 금고
+            // --------------------
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS family_bank (
+                  family_id INTEGER PRIMARY KEY,
+                  balance INTEGER NOT NULL DEFAULT 0,
+                  FOREIGN KEY(family_id) REFERENCES families(id)
+                )
+            """);
+
+            // --------------------
+            // 세금 장부
+            // --------------------
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS tax_ledger (
+                  id INTEGER PRIMARY KEY AUTOINCREMENT,
+                  family_id INTEGER NOT NULL,
+                  npc_id INTEGER NOT NULL,
+                  amount INTEGER NOT NULL,
+                  reason TEXT,
+                  created_at INTEGER NOT NULL,
+                  FOREIGN KEY(family_id) REFERENCES families(id)
+                )
+            """);
+
+            // --------------------
+            // 미납 테이블
+            // --------------------
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS tax_due (
+                  uuid TEXT PRIMARY KEY,
+                  due INTEGER NOT NULL DEFAULT 0
+                )
+            """);
+
+            // --------------------
+            // 영지(가문 땅)
+            // --------------------
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS family_land (
+                  family_id INTEGER PRIMARY KEY,
+                  world TEXT NOT NULL,
+                  x INTEGER NOT NULL,
+                  y INTEGER NOT NULL,
+                  z INTEGER NOT NULL,
+                  radius INTEGER NOT NULL DEFAULT 30,
+                  enabled INTEGER NOT NULL DEFAULT 1,
+                  FOREIGN KEY(family_id) REFERENCES families(id)
+                )
+            """);
+
+            // --------------------
+            // user_version 도입 전 DB: 컬럼 없으면 추가 (v1 에서 한 번만)
+            // --------------------
+            ensureColumnExists(conn, "members", "job",
+                    "ALTER TABLE members ADD COLUMN job TEXT NOT NULL DEFAULT 'NONE'");
+            ensureColumnExists(conn, "members", "is_serf",
+                    "ALTER TABLE members ADD COLUMN is_serf INTEGER NOT NULL DEFAULT 0");
+
+            ensureColumnExists(conn, "members", "serf_miss_count",
+                    "ALTER TABLE members ADD COLUMN serf_miss_count INTEGER NOT NULL DEFAULT 0");
+            ensureColumnExists(conn, "members", "serf_deliver_points",
+                    "ALTER TABLE members ADD COLUMN serf_deliver_points INTEGER NOT NULL DEFAULT 0");
+            ensureColumnExists(conn, "members", "serf_next_due_at",
+                    "ALTER TABLE members ADD COLUMN serf_next_due_at INTEGER NOT NULL DEFAULT 0");
+            ensureColumnExists(conn, "members", "serf_tax_discount_until",
+                    "ALTER TABLE members ADD COLUMN serf_tax_discount_until INTEGER NOT NULL DEFAULT 0");
+            ensureColumnExists(conn, "members", "serf_last_warn_at",
+                    "ALTER TABLE members ADD COLUMN serf_last_warn_at INTEGER NOT NULL DEFAULT 0");
+
+        }
+    }
+
+    // --------------------
+    // v2: 가문 단위 조회용 인덱스
+    // --------------------
+    private static void v2Indexes(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_members_family ON members(family_id)");
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_npc_members_family ON npc_members(family_id)");
+            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_tax_ledger_family_time ON tax_ledger(family_id, created_at)");
+        }
+    }
+
+    // --------------------
+    // v3: 상인 상점 (shops.yml 대체, 아이템은 serializeAsBytes)
+    // --------------------
+    private static void v3Shops(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS merchant_shops (
+                  npc_id INTEGER PRIMARY KEY,
+                  title TEXT NOT NULL,
+                  size INTEGER NOT NULL DEFAULT 54
+                )
+            """);
+
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS merchant_shop_items (
+                  npc_id INTEGER NOT NULL,
+                  slot INTEGER NOT NULL,
+                  price INTEGER NOT NULL,
+                  item BLOB NOT NULL,
+                  PRIMARY KEY(npc_id, slot),
+                  FOREIGN KEY(npc_id) REFERENCES merchant_shops(npc_id)
+                )
+            """);
+        }
+    }
+
+    // --------------------
+    // v4: 상점 슬롯별 재고/보충 규칙 (행이 없는 슬롯은 무한 재고)
+    // --------------------
+    private static void v4Stock(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS merchant_stock (
+                  npc_id INTEGER NOT NULL,
+                  slot INTEGER NOT NULL,
+                  stock INTEGER NOT NULL,
+                  max_stock INTEGER NOT NULL,
+                  restock_amount INTEGER NOT NULL DEFAULT 0,
+                  restock_interval_ms INTEGER NOT NULL DEFAULT 0,
+                  next_restock_at INTEGER NOT NULL DEFAULT 0,
+                  PRIMARY KEY(npc_id, slot)
+                )
+            """);
+        }
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private static void ensureColumnExists(Connection conn, String table, String column, String alterSql) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                String name = rs.getString("name");
+                if (column.equalsIgnoreCase(name)) return;
+            }
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(alterSql);
+        }
+    }
+}
\ No newline at end of file
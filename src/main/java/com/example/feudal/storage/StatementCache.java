@@ -0,0 +1,123 @@
+package com.example.feudal.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 하나에 묶인 PreparedStatement 등록소.
+ * 같은 SQL(문장 자체가 이름)은 커넥션당 한 번만 prepare 하고 계속 재사용한다.
+ * - 커넥션을 소유한 스레드에서만 사용 (DbExecutor 작업 안)
+ * - prepare() 가 주는 Stmt 는 try-with-resources 로 닫아도 실제로는 닫히지 않고 반납만 됨
+ * - 같은 문장을 쓰는 중에 또 요청하면(재진입) 그때만 임시 문장을 새로 만든다
+ */
+public class StatementCache implements AutoCloseable {
+
+    /** executions = 실제 execute* 호출 수 (executeBatch 는 묶음 하나당 1회) */
+    public record Stats(int cached, long prepares, long executions) {}
+
+    private final Connection conn;
+    private final Map<String, Stmt> cache = new HashMap<>();
+
+    // 다른 스레드(/f stats)에서 읽음
+    private final LongAdder prepares = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private volatile int cached;
+
+    StatementCache(Connection conn) {
+        this.conn = conn;
+    }
+
+    /** 캐시를 거치지 않는 작업(스키마, 트랜잭션 등)용 */
+    public Connection connection() {
+        return conn;
+    }
+
+    public Stmt prepare(String sql) throws SQLException {
+        return get(sql, false);
+    }
+
+    /** INSERT 후 getGeneratedKeys 가 필요한 문장 */
+    public Stmt prepareWithKeys(String sql) throws SQLException {
+        return get(sql, true);
+    }
+
+    public Stats stats() {
+        return new Stats(cached, prepares.sum(), executions.sum());
+    }
+
+    @Override
+    public void close() {
+        for (Stmt s : cache.values()) {
+            try { s.ps.close(); } catch (SQLException ignored) {}
+        }
+        cache.clear();
+        cached = 0;
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private Stmt get(String sql, boolean keys) throws SQLException {
+        String key = keys ? "K:" + sql : sql;
+        Stmt s = cache.get(key);
+        if (s == null) {
+            s = new Stmt(newStatement(sql, keys), true, executions);
+            cache.put(key, s);
+            cached = cache.size();
+        } else if (s.inUse) {
+            s = new Stmt(newStatement(sql, keys), false, executions);
+        }
+        s.inUse = true;
+        return s;
+    }
+
+    private PreparedStatement newStatement(String sql, boolean keys) throws SQLException {
+        prepares.increment();
+        return keys
+                ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(sql);
+    }
+
+    /** 재사용되는 문장 핸들. close() 는 파라미터만 비우고 반납 */
+    public static final class Stmt implements AutoCloseable {
+        private final PreparedStatement ps;
+        private final boolean pooled;
+        private final LongAdder executions;
+        private boolean inUse;
+
+        private Stmt(PreparedStatement ps, boolean pooled, LongAdder executions) {
+            this.ps = ps;
+            this.pooled = pooled;
+            this.executions = executions;
+        }
+
+        public void setInt(int idx, int v) throws SQLException { ps.setInt(idx, v); }
+        public void setLong(int idx, long v) throws SQLException { ps.setLong(idx, v); }
+        public void setString(int idx, String v) throws SQLException { ps.setString(idx, v); }
+        public void setBytes(int idx, byte[] v) throws SQLException { ps.setBytes(idx, v); }
+
+        public ResultSet executeQuery() throws SQLException { executions.increment(); return ps.executeQuery(); }
+        public int executeUpdate() throws SQLException { executions.increment(); return ps.executeUpdate(); }
+        public ResultSet getGeneratedKeys() throws SQLException { return ps.getGeneratedKeys(); }
+
+        public void addBatch() throws SQLException { ps.addBatch(); }
+        public int[] executeBatch() throws SQLException { executions.increment(); return ps.executeBatch(); }
+
+        @Override
+        public void close() throws SQLException {
+            if (!pooled) {
+                ps.close();
+                return;
+            }
+            inUse = false;
+            ps.clearParameters();
+            ps.clearBatch();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.example.feudal.util;
+
+/**
+ * IntCooldowns / UuidCooldowns 공통 본체: (long, long) 키 -> long 시각 맵 (open addressing, 박싱 없음).
+ * 스레드 안전하지 않음 (한 스레드에서만).
+ * 값은 "마지막 시각" 이고 값 + ttlMs 가 지나면 만료 -> sweep() 으로 정리.
+ * 마감 시각을 그대로 넣는 용도면 ttlMs = 0.
+ * 커질 때는 먼저 만료분을 치워서 오래된 키 때문에 자라지 않게 함.
+ */
+abstract class CooldownTable {
+
+    private final long ttlMs;
+    private long[] his;
+    private long[] los;
+    private long[] vals;
+    private boolean[] used;
+    private int size;
+
+    CooldownTable(long ttlMs) {
+        this.ttlMs = ttlMs;
+        alloc(16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** 만료된 항목 제거, 지운 개수 리턴 */
+    public int sweep(long nowMs) {
+        int before = size;
+        for (int i = 0; i < vals.length; ) {
+            // 지우면 뒤 항목이 이 자리로 당겨질 수 있어서 같은 칸을 다시 봄
+            if (used[i] && vals[i] + ttlMs <= nowMs) delete(i);
+            else i++;
+        }
+        return before - size;
+    }
+
+    // --------------------
+    // 키 타입별 클래스가 쓰는 것
+    // --------------------
+    final long get(long hi, long lo, long def) {
+        int i = find(hi, lo);
+        return i < 0 ? def : vals[i];
+    }
+
+    final void put(long hi, long lo, long value) {
+        int mask = vals.length - 1;
+        int i = mix(hi, lo) & mask;
+        while (used[i]) {
+            if (his[i] == hi && los[i] == lo) {
+                vals[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        his[i] = hi;
+        los[i] = lo;
+        vals[i] = value;
+        used[i] = true;
+        if (++size * 2 > vals.length) {
+            sweep(System.currentTimeMillis());
+            if (size * 2 > vals.length) rehash(vals.length * 2);
+        }
+    }
+
+    final void remove(long hi, long lo) {
+        int i = find(hi, lo);
+        if (i >= 0) delete(i);
+    }
+
+    // --------------------
+    // 내부
+    // --------------------
+    private int find(long hi, long lo) {
+        int mask = vals.length - 1;
+        for (int i = mix(hi, lo) & mask; used[i]; i = (i + 1) & mask) {
+            if (his[i] == hi && los[i] == lo) return i;
+        }
+        return -1;
+    }
+
+    /** 선형 탐사용 backward-shift 삭제 (묘비 없음) */
+    private void delete(int slot) {
+        int mask = vals.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = mix(his[i], los[i]) & mask;
+            // home 이 (hole, i] 구간 밖이면 hole 로 당길 수 있음
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                his[hole] = his[i];
+                los[hole] = los[i];
+                vals[hole] = vals[i];
+                hole = i;
+            }
+        }
+        used[hole] = false;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oh = his;
+        long[] ol = los;
+        long[] ov = vals;
+        boolean[] ou = used;
+        alloc(capacity);
+        size = 0;
+        for (int i = 0; i < ov.length; i++) {
+            if (ou[i]) put(oh[i], ol[i], ov[i]);
+        }
+    }
+
+    private void alloc(int capacity) {
+        his = new long[capacity];
+        los = new long[capacity];
+        vals = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private static int mix(long hi, long lo) {
+        long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
\ No newline at end of file
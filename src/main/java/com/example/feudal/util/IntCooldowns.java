@@ -0,0 +1,24 @@
+package com.example.feudal.util;
+
+/**
+ * int 키 -> long 시각 맵. 탐사/삭제/sweep 은 CooldownTable 에 있고 여기선 키만 (key, 0) 으로 넘김.
+ * 스레드 안전하지 않음 (메인 스레드용).
+ */
+public final class IntCooldowns extends CooldownTable {
+
+    public IntCooldowns(long ttlMs) {
+        super(ttlMs);
+    }
+
+    public long get(int key, long def) {
+        return get(key, 0L, def);
+    }
+
+    public void put(int key, long value) {
+        put(key, 0L, value);
+    }
+
+    public void remove(int key) {
+        remove(key, 0L);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.example.feudal.util;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * 인벤토리 수량 계산/차감 (메인 스레드).
+ * getContents 는 만들 때 한 번만 복사하고, 세기/빼기는 그 배열에서 하며, 바뀐 게 있으면 commit() 에서 setContents 한 번.
+ * 배열 안의 ItemStack 은 실제 인벤토리와 연결된 객체일 수 있어서(CraftBukkit) 수량을 바꿀 칸만 복제해서 고친다
+ * -> commit 없이 버리면 인벤토리는 그대로.
+ * 한 개만 빼는 경우는 inv.first + 칸 하나 수정이 더 싸므로 이걸 쓰지 말 것.
+ */
+public final class InventoryTally {
+
+    private final Inventory inv;
+    private final ItemStack[] contents;
+    private boolean dirty;
+
+    private InventoryTally(Inventory inv) {
+        this.inv = inv;
+        this.contents = inv.getContents();
+    }
+
+    public static InventoryTally of(Inventory inv) {
+        return new InventoryTally(inv);
+    }
+
+    public int count(Material mat) {
+        int sum = 0;
+        for (ItemStack it : contents) {
+            if (it != null && it.getType() == mat) sum += it.getAmount();
+        }
+        return sum;
+    }
+
+    public boolean has(Material mat, int amount) {
+        int sum = 0;
+        for (ItemStack it : contents) {
+            if (it != null && it.getType() == mat && (sum += it.getAmount()) >= amount) return true;
+        }
+        return amount <= 0;
+    }
+
+    /** 최대 amount 개 빼고 실제로 뺀 개수 리턴 (commit 전에는 인벤토리에 반영 안 됨) */
+    public int remove(Material mat, int amount) {
+        int left = amount;
+        for (int i = 0; i < contents.length && left > 0; i++) {
+            ItemStack it = contents[i];
+            if (it == null || it.getType() != mat) continue;
+
+            int take = Math.min(it.getAmount(), left);
+            left -= take;
+            if (take == it.getAmount()) {
+                contents[i] = null;
+            } else {
+                ItemStack copy = it.clone();
+                copy.setAmount(it.getAmount() - take);
+                contents[i] = copy;
+            }
+        }
+        if (left < amount) dirty = true;
+        return amount - left;
+    }
+
+    /** 바뀐 게 있을 때만 setContents 한 번 */
+    public boolean commit() {
+        if (!dirty) return false;
+        inv.setContents(contents);
+        dirty = false;
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.feudal.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * int id 용 해시드 타이밍 휠 (메인 스레드 전용). NPC 스케줄러, 상점 재고 보충에서 사용.
+ * - schedule: 실행 시각이 속한 칸에 넣기만 함 (id 당 하나, 다시 넣으면 이전 것은 무효)
+ * - advance: 지난 칸만 훑어서 시각이 된 것만 실행 -> 틱당 비용은 "이번에 만기인 작업 수"에 비례
+ * 한 바퀴보다 먼 작업은 칸에 남아 있다가 해당 바퀴에 실행된다.
+ */
+public final class TimingWheel {
+
+    private record Entry(int id, long dueTick) {}
+
+    private final long tickMs;
+    private final int mask;
+    private final List<Entry>[] slots;
+    private final Map<Integer, Long> dueOf = new HashMap<>(); // id -> 유효한 dueTick
+
+    private long cursor; // 마지막으로 처리한 휠 틱
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int slotCount) {
+        int n = Integer.highestOneBit(Math.max(2, slotCount) - 1) << 1;
+        this.tickMs = tickMs;
+        this.mask = n - 1;
+        this.slots = new List[n];
+        for (int i = 0; i < n; i++) slots[i] = new ArrayList<>();
+        this.cursor = System.currentTimeMillis() / tickMs - 1;
+    }
+
+    public void schedule(int id, long dueAtMs) {
+        long tick = dueAtMs / tickMs;
+        if (tick <= cursor) tick = cursor + 1; // 이미 지난 시각이면 다음 칸
+
+        Long cur = dueOf.get(id);
+        if (cur != null && cur == tick) return;
+
+        dueOf.put(id, tick);
+        slots[(int) (tick & mask)].add(new Entry(id, tick));
+    }
+
+    public void cancel(int id) {
+        dueOf.remove(id);
+    }
+
+    public boolean isScheduled(int id) {
+        return dueOf.containsKey(id);
+    }
+
+    public int size() {
+        return dueOf.size();
+    }
+
+    /** nowMs 까지 만기된 id 들을 fire 로 넘김. fire 안에서 다시 schedule 해도 됨 */
+    public void advance(long nowMs, IntConsumer fire) {
+        long target = nowMs / tickMs;
+        if (target <= cursor) return;
+
+        // 한 바퀴 넘게 밀렸으면 모든 칸을 한 번씩만 보면 충분
+        long steps = Math.min(target - cursor, slots.length);
+        List<Integer> due = new ArrayList<>();
+
+        for (long t = target - steps + 1; t <= target; t++) {
+            int idx = (int) (t & mask);
+            List<Entry> slot = slots[idx];
+            if (slot.isEmpty()) continue;
+
+            List<Entry> keep = new ArrayList<>();
+            for (Entry e : slot) {
+                Long valid = dueOf.get(e.id());
+                if (valid == null || valid != e.dueTick()) continue; // 취소됐거나 다시 예약된 것
+                if (e.dueTick() > target) {
+                    keep.add(e); // 다음 바퀴 이후
+                    continue;
+                }
+                dueOf.remove(e.id());
+                due.add(e.id());
+            }
+            slots[idx] = keep;
+        }
+        cursor = target;
+
+        for (int id : due) fire.accept(id);
+    }
+}
\ No newline at end of file
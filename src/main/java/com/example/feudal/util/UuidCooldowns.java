@@ -0,0 +1,26 @@
+package com.example.feudal.util;
+
+import java.util.UUID;
+
+/**
+ * UUID 키 -> long 시각 맵. 탐사/삭제/sweep 은 CooldownTable 에 있고 여기선 키를 (msb, lsb) 로 풀어서 넘김.
+ * 스레드 안전하지 않음 (메인 스레드용).
+ */
+public final class UuidCooldowns extends CooldownTable {
+
+    public UuidCooldowns(long ttlMs) {
+        super(ttlMs);
+    }
+
+    public long get(UUID key, long def) {
+        return get(key.getMostSignificantBits(), key.getLeastSignificantBits(), def);
+    }
+
+    public void put(UUID key, long value) {
+        put(key.getMostSignificantBits(), key.getLeastSignificantBits(), value);
+    }
+
+    public void remove(UUID key) {
+        remove(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+}
\ No newline at end of file